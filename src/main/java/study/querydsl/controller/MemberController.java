@@ -3,19 +3,29 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamPage;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.FetchPlan;
 
 import java.util.List;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_BATCH_IDS = 1000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
 
@@ -33,4 +43,27 @@ public class MemberController {
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    // id 여러 개를 한번에 조회 (/v1/members/batch?ids=3,1,2 -> 3, 1, 2 순서로 응답, 없는 id는 빠짐)
+    // ids=1,,2 처럼 빈 값이 있으면 null 원소가 들어오므로 400
+    @GetMapping("/v1/members/batch")
+    public List<MemberTeamDto> findMembers(@RequestParam List<Long> ids) {
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not contain empty values");
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "too many ids: " + ids.size() + " (max " + MAX_BATCH_IDS + ")");
+        }
+        return memberRepository.findAllByIdsInOrder(ids, FetchPlan.of(member.team)).stream()
+                .map(m -> new MemberTeamDto(m.getId(), m.getUsername(), m.getAge(),
+                        m.getTeam() != null ? m.getTeam().getId() : null,
+                        m.getTeam() != null ? m.getTeam().getName() : null))
+                .collect(Collectors.toList());
+    }
+
+    // v3와 같은 조회, 응답만 pageable/sort 없이 간단한 JSON으로 (MemberTeamPageMessageConverter 참고)
+    @GetMapping("/v4/members")
+    public MemberTeamPage searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+        return new MemberTeamPage(memberRepository.searchPageComplex(condition, pageable));
+    }
 }
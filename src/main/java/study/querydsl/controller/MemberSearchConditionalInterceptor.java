@@ -0,0 +1,52 @@
+package study.querydsl.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ChangeVersions;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 회원 검색 응답의 조건부 요청(ETag) 처리
+ *
+ * 같은 조건으로 계속 polling 하는 클라이언트에게, 그 사이 Member/Team이 하나도 안바뀌었으면
+ * 쿼리/직렬화 없이 304 Not Modified로 응답한다.
+ * - ETag: Member, Team의 ChangeVersions 버전 (벌크 연산 포함 모든 변경에 올라감) + 서버 시작 시각
+ *   -> 재시작 후에 버전이 0부터 다시 시작해도 예전 ETag와 겹치지 않음
+ * - Last-Modified는 안쓴다. 초 단위라서 응답과 같은 초에 바뀐 내용을 If-Modified-Since 요청이 304로 가려버림
+ * - 버전은 쿼리 전에 읽는다. 그 사이에 바뀌면 ETag가 데이터보다 옛날 것이 되어 다음 요청에서 다시 조회할 뿐, 바뀐 걸 놓치지는 않음
+ *
+ * 참고: 조건과 상관없이 Member/Team 중 하나라도 바뀌면 모든 검색 응답의 ETag가 바뀐다.
+ * 참고: ChangeVersions가 서버마다 따로라서, 서버가 여러대면 로드밸런서가 같은 서버로 보내지 않는 한 304 비율이 떨어진다.
+ */
+@Component
+public class MemberSearchConditionalInterceptor implements HandlerInterceptor {
+
+    private static final Class<?>[] MEMBER_TEAM = {Member.class, Team.class};
+
+    private final ChangeVersions changeVersions;
+    private final String instanceId;
+
+    public MemberSearchConditionalInterceptor(ChangeVersions changeVersions) {
+        this.changeVersions = changeVersions;
+        this.instanceId = Long.toString(changeVersions.getStartedAt(), 36);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        String etag = "W/\"" + instanceId + "-" + changeVersions.version(MEMBER_TEAM) + "\"";
+
+        // 브라우저/프록시가 캐시한 응답을 쓰기 전에 항상 다시 확인하게 함
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
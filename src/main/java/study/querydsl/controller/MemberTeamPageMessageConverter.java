@@ -0,0 +1,118 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * MemberTeamPage 전용 JSON writer
+ *
+ * ObjectMapper로 PageImpl을 쓰면 리플렉션으로 프로퍼티를 찾고 pageable/sort 객체까지 직렬화한다.
+ * 여기서는 필드 이름을 미리 인코딩해두고(SerializedString), JsonGenerator로 응답 스트림에 바로 쓴다. (중간 객체/트리 없음)
+ * - 필드 구성은 MemberTeamDto, MemberTeamPage 참고 (필드가 바뀌면 여기도 같이 바꿔야 함)
+ * - HttpMessageConverter 빈이라 스프링 부트가 기본 Jackson 컨버터보다 앞에 등록해준다.
+ * - gzip은 server.compression 설정으로 (Accept-Encoding: gzip 요청에만 적용)
+ */
+@Component
+public class MemberTeamPageMessageConverter extends AbstractHttpMessageConverter<MemberTeamPage> {
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString AGE = new SerializedString("age");
+    private static final SerializedString TEAM_ID = new SerializedString("teamId");
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+    private static final SerializedString LAST = new SerializedString("last");
+
+    private final JsonFactory jsonFactory;
+
+    public MemberTeamPageMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MemberTeamPage.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MemberTeamPage readInternal(Class<? extends MemberTeamPage> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("MemberTeamPage is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(MemberTeamPage memberTeamPage, HttpOutputMessage outputMessage) throws IOException {
+        write(memberTeamPage.getPage(), outputMessage.getBody());
+    }
+
+    public void write(Page<MemberTeamDto> page, OutputStream out) throws IOException {
+        try (JsonGenerator gen = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // 응답 스트림은 컨테이너가 닫음
+            gen.writeStartObject();
+            gen.writeFieldName(CONTENT);
+            gen.writeStartArray();
+            for (MemberTeamDto dto : page.getContent()) {
+                writeMemberTeam(gen, dto);
+            }
+            gen.writeEndArray();
+            gen.writeFieldName(PAGE);
+            gen.writeNumber(page.getNumber());
+            gen.writeFieldName(SIZE);
+            gen.writeNumber(page.getSize());
+            gen.writeFieldName(TOTAL_ELEMENTS);
+            gen.writeNumber(page.getTotalElements());
+            gen.writeFieldName(TOTAL_PAGES);
+            gen.writeNumber(page.getTotalPages());
+            gen.writeFieldName(LAST);
+            gen.writeBoolean(page.isLast());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeMemberTeam(JsonGenerator gen, MemberTeamDto dto) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(MEMBER_ID);
+        writeLong(gen, dto.getMemberId());
+        gen.writeFieldName(USERNAME);
+        gen.writeString(dto.getUsername());
+        gen.writeFieldName(AGE);
+        gen.writeNumber(dto.getAge());
+        gen.writeFieldName(TEAM_ID);
+        writeLong(gen, dto.getTeamId());
+        gen.writeFieldName(TEAM_NAME);
+        gen.writeString(dto.getTeamName());
+        gen.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator gen, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
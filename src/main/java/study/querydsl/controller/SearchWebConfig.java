@@ -0,0 +1,24 @@
+package study.querydsl.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// querydsl.conditional-get.enabled: 기본 true (회원 검색 API에 ETag, MemberSearchConditionalInterceptor 참고)
+@Configuration
+@ConditionalOnProperty(name = "querydsl.conditional-get.enabled", havingValue = "true", matchIfMissing = true)
+public class SearchWebConfig implements WebMvcConfigurer {
+
+    private final MemberSearchConditionalInterceptor memberSearchConditionalInterceptor;
+
+    public SearchWebConfig(MemberSearchConditionalInterceptor memberSearchConditionalInterceptor) {
+        this.memberSearchConditionalInterceptor = memberSearchConditionalInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(memberSearchConditionalInterceptor)
+                .addPathPatterns("/v1/members", "/v1/members/batch", "/v2/members", "/v3/members", "/v4/members");
+    }
+}
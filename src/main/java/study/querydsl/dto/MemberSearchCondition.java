@@ -1,8 +1,14 @@
 package study.querydsl.dto;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@Builder(toBuilder = true) // 캐시 키처럼 조건을 복사해둬야 할 때 toBuilder().build() 사용
+@NoArgsConstructor
+@AllArgsConstructor
 public class MemberSearchCondition {
 
     //회원명, 팀명, 나이(ageGoe, ageLoe)
@@ -10,4 +16,11 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    // true면 username을 대소문자 구분없이 비교 (Member.usernameNormalized 컬럼 사용)
+    private Boolean usernameIgnoreCase;
+
+    // 회원명 접두어/부분 검색 (UsernameIndex 참고)
+    private String usernamePrefix;
+    private String usernameContains;
 }
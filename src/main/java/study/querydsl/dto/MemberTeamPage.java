@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+
+/**
+ * 회원 검색 페이지 응답 (/v4/members)
+ * PageImpl을 그대로 내보내면 pageable, sort 객체까지 매번 같이 직렬화되므로,
+ * 필요한 값만 간단한 형태로 쓴다. (MemberTeamPageMessageConverter 참고)
+ *
+ * {"content":[{"memberId":1,"username":"member1","age":10,"teamId":1,"teamName":"teamA"}],
+ *  "page":0,"size":20,"totalElements":1,"totalPages":1,"last":true}
+ */
+@Getter
+public class MemberTeamPage {
+
+    private final Page<MemberTeamDto> page;
+
+    public MemberTeamPage(Page<MemberTeamDto> page) {
+        this.page = page;
+    }
+}
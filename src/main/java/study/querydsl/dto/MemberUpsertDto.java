@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 외부 시스템에서 동기화되는 회원 레코드 (username이 자연키)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberUpsertDto {
+
+    private String username;
+    private int age;
+    private Long teamId;
+}
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class UpsertResult {
+
+    private final long inserted;
+    private final long updated;
+
+    public UpsertResult(long inserted, long updated) {
+        this.inserted = inserted;
+        this.updated = updated;
+    }
+
+    public UpsertResult plus(long inserted, long updated) {
+        return new UpsertResult(this.inserted + inserted, this.updated + updated);
+    }
+}
@@ -0,0 +1,59 @@
+package study.querydsl.entity;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
+import lombok.Getter;
+
+/**
+ * 회원 나이 구간 (QuerydslBasicTest의 rankPath, complexCase와 같은 구간)
+ * 조회할 때마다 CaseBuilder로 계산하지 않고 member.age_band 컬럼에 저장해두고 인덱스를 태운다.
+ *
+ * 참고: ORDINAL로 저장하므로 선언 순서 = rankPath 순위 이다.
+ * -> orderBy(member.ageBand.asc()) 가 orderBy(rankPath.asc()) 와 같은 순서가 됨
+ * -> 순서를 바꾸거나 중간에 새 구간을 끼워넣으면 저장된 값이 다 어긋나니 주의!
+ */
+@Getter
+public enum AgeBand {
+
+    AGE_21_30(21, 30, "21~30살"),   // rank 1
+    AGE_0_20(0, 20, "0~20살"),      // rank 2
+    ETC(null, null, "기타");         // rank 3 (음수 나이 포함)
+
+    private final Integer minAge;
+    private final Integer maxAge;
+    private final String label;
+
+    AgeBand(Integer minAge, Integer maxAge, String label) {
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.label = label;
+    }
+
+    public int getRank() {
+        return ordinal() + 1;
+    }
+
+    public boolean contains(int age) {
+        return minAge != null && minAge <= age && age <= maxAge;
+    }
+
+    public static AgeBand of(int age) {
+        if (AGE_0_20.contains(age)) {
+            return AGE_0_20;
+        }
+        if (AGE_21_30.contains(age)) {
+            return AGE_21_30;
+        }
+        return ETC;
+    }
+
+    /**
+     * 이 구간에 해당하는 나이 조건 (벌크 update 후 age_band를 다시 맞출 때 사용)
+     */
+    public BooleanExpression agePredicate(NumberExpression<Integer> age) {
+        if (this != ETC) {
+            return age.between(minAge, maxAge);
+        }
+        return age.lt(AGE_0_20.minAge).or(age.gt(AGE_21_30.maxAge));
+    }
+}
@@ -2,6 +2,9 @@ package study.querydsl.entity;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -12,6 +15,10 @@ import javax.persistence.Id;
 public class Hello {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "hello_seq_generator")
+    @GenericGenerator(
+            name = "hello_seq_generator",
+            strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hello_seq"))
     private Long id;
 }
@@ -1,23 +1,61 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
+import java.util.Locale;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"), // upsert 자연키 조회용
+        @Index(name = "idx_member_age_band", columnList = "age_band, age"), // 나이 구간 필터/정렬용
+        @Index(name = "idx_member_username_normalized", columnList = "username_normalized") // 대소문자 무시 검색용
+})
+@NamedEntityGraphs({ // FetchPlan.named(...) 로 사용
+        @NamedEntityGraph(name = "Member.team", attributeNodes = @NamedAttributeNode("team")),
+        @NamedEntityGraph(name = "Member.teamMembers",
+                attributeNodes = @NamedAttributeNode(value = "team", subgraph = "members"),
+                subgraphs = @NamedSubgraph(name = "members", attributeNodes = @NamedAttributeNode("members")))
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // 기본생성자
 @ToString(of = {"id", "username", "age"}) // 연관관계 필드는 넣어주면 안됨
 public class Member {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(
+            name = "member_seq_generator",
+            strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
 
     private String username;
 
+    /**
+     * username을 소문자로 바꿔둔 파생 컬럼 (대소문자 무시 검색용)
+     * where lower(username) = ? 는 인덱스를 못타니까 미리 바꿔서 저장해두고 이 컬럼으로 검색한다.
+     * 참고: age_band와 마찬가지로 벌크 update와 JDBC MERGE는 MemberBulkRepository에서 맞춰준다.
+     */
+    @Column(name = "username_normalized")
+    @Setter(AccessLevel.NONE)
+    private String usernameNormalized;
+
     private int age;
 
+    /**
+     * age로 계산되는 파생 컬럼 - 직접 바꾸지 말고 age만 바꾸자
+     * 참고: JPA로 저장/수정할 때는 여기서 맞춰주고, 벌크 update와 JDBC MERGE는 MemberBulkRepository에서 맞춰준다.
+     */
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "age_band")
+    @Setter(AccessLevel.NONE)
+    private AgeBand ageBand;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -31,13 +69,39 @@ public class Member {
     }
 
     public Member(String username, int age, Team team) {
-        this.username = username;
-        this.age = age;
+        setUsername(username);
+        setAge(age);
         if (team != null) {
             changeTeam(team);
         }
     }
 
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameNormalized = normalizeUsername(username);
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+        this.ageBand = AgeBand.of(age);
+    }
+
+    // 리플렉션 등으로 원본 필드만 바뀐 경우에도 저장 직전에 한번 더 맞춰준다
+    @PrePersist
+    @PreUpdate
+    private void computeDerivedColumns() {
+        this.usernameNormalized = normalizeUsername(username);
+        this.ageBand = AgeBand.of(age);
+    }
+
+    /**
+     * 검색어도 같은 규칙으로 바꿔서 username_normalized 와 비교해야 한다.
+     * 참고: 벌크 update 후에는 SQL lower()로 맞추므로 규칙을 바꿀 때 MemberBulkRepository도 같이 바꿔야 한다.
+     */
+    public static String normalizeUsername(String username) {
+        return username != null ? username.toLowerCase(Locale.ROOT) : null;
+    }
+
     private void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
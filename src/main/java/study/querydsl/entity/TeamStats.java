@@ -0,0 +1,35 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 팀별 회원 통계를 미리 집계해두는 테이블 (회원이 바뀔 때마다 TeamStatsMaintainer가 갱신)
+ * team.name, member.age.avg() 같은 groupBy 집계를 회원 전체를 훑지 않고 팀 수만큼만 읽어서 답하기 위함.
+ *
+ * stale: 회원 삭제/나이 변경으로 최소/최대값을 증분으로 못맞추거나, 벌크 연산으로 뭐가 바뀌었는지 모르는 경우 true
+ * -> 조회할 때 그 팀만 다시 계산한다.
+ * 참고: 값 변경은 전부 JDBC로 하므로 setter는 두지 않는다. (조회 전용 엔티티)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+    private boolean stale;
+}
@@ -0,0 +1,21 @@
+package study.querydsl.monitoring;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MonitoringWebConfig implements WebMvcConfigurer {
+
+    private final PersistenceContextInterceptor persistenceContextInterceptor;
+
+    public MonitoringWebConfig(PersistenceContextInterceptor persistenceContextInterceptor) {
+        this.persistenceContextInterceptor = persistenceContextInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(persistenceContextInterceptor)
+                .excludePathPatterns("/actuator/**");
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.monitoring;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// 요청 단위로 PersistenceContextMonitor 통계를 시작/종료
+@Component
+public class PersistenceContextInterceptor implements HandlerInterceptor {
+
+    private final PersistenceContextMonitor persistenceContextMonitor;
+
+    public PersistenceContextInterceptor(PersistenceContextMonitor persistenceContextMonitor) {
+        this.persistenceContextMonitor = persistenceContextMonitor;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        persistenceContextMonitor.begin();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        persistenceContextMonitor.end(pattern != null ? pattern.toString() : "UNKNOWN");
+    }
+}
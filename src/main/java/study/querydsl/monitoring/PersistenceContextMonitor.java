@@ -0,0 +1,163 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+/**
+ * 요청마다 영속성 컨텍스트가 얼마나 커졌는지, 무엇을 했는지 기록
+ * (로드한 엔티티 수, 초기화한 컬렉션 수, flush 횟수, 영속성 컨텍스트 최대 크기)
+ *
+ * - 영속성 컨텍스트에 warn-size 보다 많은 엔티티가 쌓이면 경고 (예: findAll()로 회원 100만명을 올리는 경우)
+ * - 쿼리 전에 자동 flush가 실제로 일어나면 경고 (warn-auto-flush)
+ * - 요청이 끝나면 querydsl.persistence-context.* 메트릭으로 남긴다. (uri 태그)
+ *
+ * begin()/end()는 PersistenceContextInterceptor가 요청마다 호출한다. 요청 밖(배치 등)에서는 직접 호출하면 된다.
+ * begin() 안한 스레드에서는 이벤트가 와도 아무것도 안한다.
+ *
+ * 설정 (application.yml)
+ * querydsl.persistence-context.warn-size: 기본 10000
+ * querydsl.persistence-context.warn-auto-flush: 기본 true
+ */
+@Slf4j
+@Component
+public class PersistenceContextMonitor implements PostLoadEventListener, InitializeCollectionEventListener,
+        FlushEventListener, AutoFlushEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final int warnSize;
+    private final boolean warnAutoFlush;
+
+    private final ThreadLocal<PersistenceContextStats> current = new ThreadLocal<>();
+
+    public PersistenceContextMonitor(EntityManagerFactory entityManagerFactory,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${querydsl.persistence-context.warn-size:10000}") int warnSize,
+                                     @Value("${querydsl.persistence-context.warn-auto-flush:true}") boolean warnAutoFlush) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+        this.warnSize = warnSize;
+        this.warnAutoFlush = warnAutoFlush;
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, this);
+        registry.appendListeners(EventType.INIT_COLLECTION, this);
+        registry.appendListeners(EventType.FLUSH, this);
+        registry.appendListeners(EventType.AUTO_FLUSH, this); // 기본 리스너 다음에 불려서 실제로 flush 했는지 알 수 있음
+    }
+
+    public PersistenceContextStats begin() {
+        PersistenceContextStats stats = new PersistenceContextStats();
+        current.set(stats);
+        return stats;
+    }
+
+    /**
+     * @param uri 메트릭 태그 (요청 URI 패턴 등)
+     */
+    public PersistenceContextStats end(String uri) {
+        PersistenceContextStats stats = current.get();
+        current.remove();
+        if (stats == null) {
+            return null;
+        }
+
+        Tags tags = Tags.of("uri", uri);
+        record("querydsl.persistence-context.entities-loaded", tags, stats.getEntitiesLoaded());
+        record("querydsl.persistence-context.collections-initialized", tags, stats.getCollectionsInitialized());
+        record("querydsl.persistence-context.flushes", tags, stats.getFlushes());
+        record("querydsl.persistence-context.auto-flushes", tags, stats.getAutoFlushes());
+        record("querydsl.persistence-context.peak-size", tags, stats.getPeakManagedEntities());
+        log.debug("persistence context [{}] {}", uri, stats);
+        return stats;
+    }
+
+    public PersistenceContextStats current() {
+        return current.get();
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        PersistenceContextStats stats = current.get();
+        if (stats == null) {
+            return;
+        }
+        int managedEntities = managedEntities(event.getSession());
+        stats.entityLoaded(managedEntities);
+        checkSize(stats, managedEntities);
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        PersistenceContextStats stats = current.get();
+        if (stats != null) {
+            stats.collectionInitialized();
+        }
+    }
+
+    @Override
+    public void onFlush(FlushEvent event) {
+        PersistenceContextStats stats = current.get();
+        if (stats == null) {
+            return;
+        }
+        int managedEntities = managedEntities(event.getSession());
+        stats.flushed(managedEntities);
+        checkSize(stats, managedEntities);
+    }
+
+    @Override
+    public void onAutoFlush(AutoFlushEvent event) {
+        PersistenceContextStats stats = current.get();
+        if (stats == null || !event.isFlushRequired()) {
+            return;
+        }
+        stats.autoFlushed();
+        if (warnAutoFlush) {
+            log.warn("Auto flush before query on {} - flush explicitly or run the query before modifying entities",
+                    Arrays.toString(event.getQuerySpaces().toArray()));
+        }
+    }
+
+    private void checkSize(PersistenceContextStats stats, int managedEntities) {
+        if (managedEntities > warnSize && stats.markOversized()) {
+            log.warn("Persistence context holds {} entities (warn-size={}) - use paging, projections or stream()",
+                    managedEntities, warnSize);
+        }
+    }
+
+    private int managedEntities(EventSource session) {
+        return session.getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+
+    private void record(String name, Tags tags, double amount) {
+        DistributionSummary.builder(name)
+                .tags(tags)
+                .register(meterRegistry)
+                .record(amount);
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 요청 하나 동안의 영속성 컨텍스트 통계 (PersistenceContextMonitor 참고)
+@Getter
+@ToString
+public class PersistenceContextStats {
+
+    private long entitiesLoaded;
+    private long collectionsInitialized;
+    private long flushes;
+    private long autoFlushes;           // 쿼리 실행 전에 하이버네이트가 알아서 flush 한 횟수
+    private int peakManagedEntities;    // 영속성 컨텍스트가 가장 컸을 때의 엔티티 수
+    private boolean oversized;
+
+    void entityLoaded(int managedEntities) {
+        entitiesLoaded++;
+        peakManagedEntities = Math.max(peakManagedEntities, managedEntities);
+    }
+
+    void collectionInitialized() {
+        collectionsInitialized++;
+    }
+
+    void flushed(int managedEntities) {
+        flushes++;
+        peakManagedEntities = Math.max(peakManagedEntities, managedEntities);
+    }
+
+    void autoFlushed() {
+        autoFlushes++;
+    }
+
+    // 처음 넘었을 때만 true (경고 로그를 한번만 남기려고)
+    boolean markOversized() {
+        if (oversized) {
+            return false;
+        }
+        oversized = true;
+        return true;
+    }
+}
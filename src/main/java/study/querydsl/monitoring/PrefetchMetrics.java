@@ -0,0 +1,29 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.PagePrefetcher;
+
+// PagePrefetcher 통계를 메트릭으로 노출 (querydsl.prefetch.*)
+@Component
+public class PrefetchMetrics implements MeterBinder {
+
+    private final PagePrefetcher pagePrefetcher;
+
+    public PrefetchMetrics(PagePrefetcher pagePrefetcher) {
+        this.pagePrefetcher = pagePrefetcher;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("querydsl.prefetch.hits", pagePrefetcher, p -> p.getStats().getHits()).register(registry);
+        FunctionCounter.builder("querydsl.prefetch.misses", pagePrefetcher, p -> p.getStats().getMisses()).register(registry);
+        FunctionCounter.builder("querydsl.prefetch.prefetched", pagePrefetcher, p -> p.getStats().getPrefetched()).register(registry);
+        FunctionCounter.builder("querydsl.prefetch.stale", pagePrefetcher, p -> p.getStats().getStale()).register(registry);
+        FunctionCounter.builder("querydsl.prefetch.rejected", pagePrefetcher, p -> p.getStats().getRejected()).register(registry);
+        Gauge.builder("querydsl.prefetch.entries", pagePrefetcher, p -> p.getStats().getEntries()).register(registry);
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.monitoring;
+
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 메트릭 태그로 쓸 검색조건 모양
+ * 값이 아니라 어떤 조건이 들어왔는지만 남긴다. (태그 값 종류가 많아지면 메트릭이 폭발하니까)
+ * 예) username+ageGoe, teamName+ageGoe+ageLoe/paged, none
+ */
+public final class QueryShape {
+
+    public static final String NONE = "none";
+
+    private QueryShape() {
+    }
+
+    public static String of(Object[] args) {
+        String shape = NONE;
+        boolean paged = false;
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                shape = of((MemberSearchCondition) arg);
+            } else if (arg instanceof Pageable) {
+                paged = ((Pageable) arg).isPaged();
+            }
+        }
+        return paged ? shape + "/paged" : shape;
+    }
+
+    public static String of(MemberSearchCondition condition) {
+        StringJoiner joiner = new StringJoiner("+");
+        if (hasText(condition.getUsername())) {
+            joiner.add(Boolean.TRUE.equals(condition.getUsernameIgnoreCase()) ? "usernameIgnoreCase" : "username");
+        }
+        if (hasText(condition.getUsernamePrefix())) {
+            joiner.add("usernamePrefix");
+        }
+        if (hasText(condition.getUsernameContains())) {
+            joiner.add("usernameContains");
+        }
+        if (hasText(condition.getTeamName())) {
+            joiner.add("teamName");
+        }
+        if (condition.getAgeGoe() != null) {
+            joiner.add("ageGoe");
+        }
+        if (condition.getAgeLoe() != null) {
+            joiner.add("ageLoe");
+        }
+        return joiner.length() == 0 ? NONE : joiner.toString();
+    }
+}
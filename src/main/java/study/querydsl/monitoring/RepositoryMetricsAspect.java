@@ -0,0 +1,112 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리포지토리 메서드별 메트릭 (/actuator/metrics 에서 확인)
+ *
+ * - querydsl.repository.query : 지연시간 (p50/p95/p99 + 히스토그램)
+ * - querydsl.repository.rows : 반환한 로우 수 (List/Page 크기)
+ * - querydsl.repository.statements : 실행한 SQL 문 개수 (count 쿼리, N+1 등이 여기서 보임)
+ *
+ * 태그: repository, method, shape(검색조건 모양, QueryShape 참고)
+ * -> 앱 전체 평균이 아니라 "teamName+ageGoe/paged 로 searchPageComplex 호출할 때의 p99"를 볼 수 있다.
+ *
+ * 참고: study.querydsl.repository 패키지의 *Repository* 빈의 public 메서드가 대상이다.
+ * Spring Data 인터페이스(MemberRepository)는 구현이 SimpleJpaRepository라 빠지고, 커스텀 구현(MemberRepositoryImpl)은 잡힌다.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    public static final String QUERY_TIMER = "querydsl.repository.query";
+    public static final String ROWS_SUMMARY = "querydsl.repository.rows";
+    public static final String STATEMENTS_SUMMARY = "querydsl.repository.statements";
+
+    private final MeterRegistry meterRegistry;
+    private final SqlStatementCounter sqlStatementCounter;
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry, SqlStatementCounter sqlStatementCounter) {
+        this.meterRegistry = meterRegistry;
+        this.sqlStatementCounter = sqlStatementCounter;
+    }
+
+    @Around("within(study.querydsl.repository.*Repository*) && execution(public * *(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Tags tags = Tags.of(
+                "repository", ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName(),
+                "method", signature.getName(),
+                "shape", QueryShape.of(joinPoint.getArgs()));
+
+        long statementsBefore = sqlStatementCounter.current();
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+
+            Timer.builder(QUERY_TIMER)
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+
+            DistributionSummary.builder(STATEMENTS_SUMMARY)
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(sqlStatementCounter.current() - statementsBefore);
+
+            long rows = rows(result, signature.getReturnType());
+            if (rows >= 0 && "success".equals(outcome)) {
+                DistributionSummary.builder(ROWS_SUMMARY)
+                        .tags(tags)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry)
+                        .record(rows);
+            }
+        }
+    }
+
+    // 로우 수를 알 수 없는 반환값(void, 건수, 수정 결과 등)은 -1
+    private long rows(Object result, Class<?> returnType) {
+        if (returnType == void.class || Number.class.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(returnType))) {
+            return -1;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result == null) {
+            return 0;
+        }
+        return returnType.getName().startsWith("study.querydsl") ? 1 : -1;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.search.MemberSearchConditionAnalyzer;
+import study.querydsl.repository.search.MemberSearchConditionAnalyzer.Reason;
+
+// 만족할 수 없는 검색조건이라 쿼리를 생략한 횟수를 이유별로 노출 (querydsl.search.unsatisfiable?tag=reason:INVERTED_AGE_RANGE)
+@Component
+public class SearchConditionMetrics implements MeterBinder {
+
+    private final MemberSearchConditionAnalyzer analyzer;
+
+    public SearchConditionMetrics(MemberSearchConditionAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Reason reason : Reason.values()) {
+            FunctionCounter.builder("querydsl.search.unsatisfiable", analyzer, a -> a.getUnsatisfiable(reason))
+                    .tag("reason", reason.name())
+                    .register(registry);
+        }
+    }
+}
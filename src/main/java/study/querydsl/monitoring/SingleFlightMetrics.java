@@ -0,0 +1,24 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.SingleFlight;
+
+// SingleFlight 통계를 메트릭으로 노출 (querydsl.singleflight.*)
+@Component
+public class SingleFlightMetrics implements MeterBinder {
+
+    private final SingleFlight singleFlight;
+
+    public SingleFlightMetrics(SingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("querydsl.singleflight.executed", singleFlight, SingleFlight::getExecuted).register(registry);
+        FunctionCounter.builder("querydsl.singleflight.shared", singleFlight, SingleFlight::getShared).register(registry);
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// 느린 쿼리 한 건 (SlowQueryRecorder 참고)
+@Getter
+@ToString
+public class SlowQuery {
+
+    private final LocalDateTime executedAt;
+    private final long elapsedMillis;   // execute 시간 (ResultSet을 읽는 시간은 fetchMillis)
+    private final String sql;           // 파라미터 자리가 ? 인 원본 SQL (같은 모양 쿼리끼리 묶을 때 사용)
+    private final String boundSql;      // 파라미터 값이 들어간 SQL (그대로 복사해서 재현 가능)
+    private final String error;
+
+    // 아래 값들은 기록한 뒤에 채워진다
+    private volatile long rows;         // select는 읽은 로우 수, update/delete는 변경된 로우 수
+    private volatile long fetchNanos;
+    private volatile String plan;       // 바로 다른 커넥션으로 실행한 EXPLAIN 결과
+
+    public SlowQuery(LocalDateTime executedAt, long elapsedMillis, String sql, String boundSql, String error) {
+        this.executedAt = executedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.sql = sql;
+        this.boundSql = boundSql;
+        this.error = error;
+    }
+
+    public long getFetchMillis() {
+        return fetchNanos / 1_000_000;
+    }
+
+    // 아래는 쿼리를 실행한 스레드(rows, fetchNanos)나 EXPLAIN 스레드(plan) 하나만 쓴다
+    void addRow(long nanos) {
+        rows++;
+        fetchNanos += nanos;
+    }
+
+    void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 느린 쿼리 조회/비우기
+ * GET /actuator/slowqueries, DELETE /actuator/slowqueries
+ *
+ * 주의: boundSql에 회원명 같은 실제 파라미터 값이 들어가 있다.
+ * 그래서 기본 설정(management.endpoints.web.exposure.include)에는 넣지 않았고,
+ * HTTP로 열려면 actuator 경로에 인증(Spring Security 등)을 먼저 붙이고 include에 slowqueries를 추가해야 한다.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    public SlowQueryEndpoint(SlowQueryRecorder slowQueryRecorder) {
+        this.slowQueryRecorder = slowQueryRecorder;
+    }
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return slowQueryRecorder.recent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryRecorder.clear();
+    }
+}
@@ -0,0 +1,194 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 임계값보다 오래 걸린 SQL을 메모리에 최근 N건만 보관 (/actuator/slowqueries 에서 확인, 기본으로는 HTTP에 안열림 - SlowQueryEndpoint 참고)
+ *
+ * p6spy는 SQL 로그만 남겨서 운영에서 느렸던 검색조건을 재현하기 어렵다.
+ * 그래서 느린 SQL은 파라미터 값이 들어간 SQL, 실행시간, 로우 수와 함께
+ * 그 순간의 실행계획(EXPLAIN)을 다른 커넥션으로 바로 떠서 같이 저장한다.
+ *
+ * 설정 (application.yml)
+ * querydsl.slow-query.threshold-millis: 기본 200 (0이면 모든 SQL 기록, 음수면 기록 안함)
+ * querydsl.slow-query.capacity: 보관할 최대 건수, 기본 100 (넘으면 오래된 것부터 버림)
+ * querydsl.slow-query.explain: 기본 true
+ *
+ * 참고: EXPLAIN은 별도 스레드 하나에서 실행하므로 느린 쿼리를 실행한 요청이 더 느려지지는 않는다. (밀리면 버림)
+ * 참고: select/update/delete만 EXPLAIN 하고, EXPLAIN ANALYZE 처럼 실제로 실행하는 건 하지 않는다.
+ */
+@Slf4j
+@Component
+public class SlowQueryRecorder extends SimpleJdbcEventListener {
+
+    private final ObjectProvider<DataSource> dataSource; // DataSource 데코레이터가 이 리스너를 쓰니까 나중에 꺼냄
+    private final long thresholdNanos;
+    private final int capacity;
+    private final boolean explain;
+
+    private final Deque<SlowQuery> recent = new ArrayDeque<>();
+    // ResultSet을 다 읽을 때까지 로우 수를 세는 중인 느린 쿼리
+    private final ThreadLocal<Pending> reading = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> explaining = ThreadLocal.withInitial(() -> false);
+    private final ThreadPoolExecutor explainExecutor;
+
+    public SlowQueryRecorder(ObjectProvider<DataSource> dataSource,
+                             @Value("${querydsl.slow-query.threshold-millis:200}") long thresholdMillis,
+                             @Value("${querydsl.slow-query.capacity:100}") int capacity,
+                             @Value("${querydsl.slow-query.explain:true}") boolean explain) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.capacity = capacity;
+        this.explain = explain;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        reading.remove();
+        if (thresholdNanos < 0 || timeElapsedNanos < thresholdNanos || explaining.get()) {
+            return;
+        }
+
+        SlowQuery slowQuery = new SlowQuery(
+                LocalDateTime.now(),
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                statementInformation.getSql(),
+                statementInformation.getSqlWithValues(),
+                e != null ? e.getMessage() : null);
+        add(slowQuery);
+        reading.set(new Pending(statementInformation, slowQuery));
+
+        if (explain && e == null && isExplainable(slowQuery.getBoundSql())) {
+            explainExecutor.execute(() -> explain(slowQuery));
+        }
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, rowCount, e);
+        Pending pending = reading.get();
+        if (pending != null && pending.statement == statementInformation) {
+            pending.slowQuery.setRows(rowCount);
+            reading.remove();
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        Pending pending = reading.get();
+        if (pending != null && hasNext && pending.statement == resultSetInformation.getStatementInformation()) {
+            pending.slowQuery.addRow(timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        Pending pending = reading.get();
+        if (pending != null && pending.statement == resultSetInformation.getStatementInformation()) {
+            reading.remove();
+        }
+    }
+
+    // 최근 것부터
+    public List<SlowQuery> recent() {
+        synchronized (recent) {
+            return Collections.unmodifiableList(new ArrayList<>(recent));
+        }
+    }
+
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private void add(SlowQuery slowQuery) {
+        synchronized (recent) {
+            if (recent.size() >= capacity) {
+                recent.removeLast();
+            }
+            recent.addFirst(slowQuery);
+        }
+    }
+
+    private void explain(SlowQuery slowQuery) {
+        explaining.set(true);
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("explain " + stripComments(slowQuery.getBoundSql()))) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                plan.append(rs.getString(1));
+            }
+            slowQuery.setPlan(plan.toString());
+        } catch (SQLException | RuntimeException e) {
+            log.debug("EXPLAIN failed: {}", slowQuery.getSql(), e);
+            slowQuery.setPlan("EXPLAIN failed: " + e.getMessage());
+        } finally {
+            explaining.set(false);
+        }
+    }
+
+    private boolean isExplainable(String sql) {
+        String statement = stripComments(sql).toLowerCase(Locale.ROOT);
+        return statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete");
+    }
+
+    // use_sql_comments 설정으로 앞에 붙는 /* ... */ 주석 제거
+    private String stripComments(String sql) {
+        String result = sql.trim();
+        while (result.startsWith("/*") && result.contains("*/")) {
+            result = result.substring(result.indexOf("*/") + 2).trim();
+        }
+        return result;
+    }
+
+    private static class Pending {
+        private final StatementInformation statement;
+        private final SlowQuery slowQuery;
+
+        private Pending(StatementInformation statement, SlowQuery slowQuery) {
+            this.statement = statement;
+            this.slowQuery = slowQuery;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 현재 스레드에서 실행된 SQL 문 개수
+ * p6spy 리스너라서 JPA/Querydsl 뿐만 아니라 JdbcTemplate으로 실행한 SQL도 센다. (배치는 executeBatch 한번을 1개로 셈)
+ * 참고: JdbcEventListener 빈은 p6spy-spring-boot-starter가 자동으로 등록해준다.
+ */
+@Component
+public class SqlStatementCounter extends SimpleJdbcEventListener {
+
+    private final ThreadLocal<long[]> counter = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        counter.get()[0]++;
+    }
+
+    // 호출 전후 값의 차이로 그 사이 실행된 SQL 개수를 구한다
+    public long current() {
+        return counter.get()[0];
+    }
+}
@@ -0,0 +1,275 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.querydsl.dto.MemberUpsertDto;
+import study.querydsl.dto.UpsertResult;
+import study.querydsl.entity.AgeBand;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkChunkOption;
+import study.querydsl.repository.support.BulkProgress;
+import study.querydsl.repository.support.EntityChangePublisher;
+import study.querydsl.repository.support.PersistenceContexts;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 벌크 수정/삭제를 member_id 범위 청크로 나눠서 실행하는 리포지토리
+ *
+ * QuerydslBasicTest의 bulkUpdate, bulkDelete처럼 테이블 전체를 쿼리 한번으로 바꾸면
+ * 그동안 락을 오래 잡고 있고 언두 로그도 계속 쌓인다. 그래서 id 범위로 잘라서 청크마다 커밋한다.
+ *
+ * 참고: 청크마다 별도 트랜잭션(REQUIRES_NEW)으로 커밋하므로 바깥 트랜잭션 안에서 호출하면 안된다.
+ * 참고: 벌크 연산은 영속성 컨텍스트를 무시하고 DB에 바로 실행되기 때문에,
+ * 청크마다 해당 id 범위의 엔티티를 영속성 컨텍스트에서 detach 하고, 끝나면 2차 캐시에서도 Member를 비운다.
+ * -> 호출하는 쪽에서 em.flush(), em.clear()를 따로 해줄 필요가 없음
+ * 참고: 벌크 update 에서는 조인을 쓸 수 없으니 where 조건에는 member 컬럼만 사용하자.
+ */
+@Repository
+public class MemberBulkRepository {
+
+    /**
+     * username을 자연키로 하는 H2 MERGE 문
+     * 있으면 나이/팀만 갱신하고, 없으면 시퀀스로 id를 받아서 새로 넣는다.
+     * (pooled-lo 시퀀스라 여기서 next value를 직접 가져가도 하이버네이트가 메모리에 들고있는 id 블록과 겹치지 않음)
+     * 참고: 다른 DB로 바꾸면 그 DB의 upsert 문법으로 바꿔줘야함 (MySQL: insert ... on duplicate key update, PostgreSQL: insert ... on conflict)
+     */
+    private static final String MERGE_MEMBER_SQL =
+            "merge into member m " +
+            "using (select cast(? as varchar(255)) as username, cast(? as varchar(255)) as username_normalized, " +
+            "cast(? as int) as age, cast(? as int) as age_band, cast(? as bigint) as team_id) s " +
+            "on m.username = s.username " +
+            "when matched then update set age = s.age, age_band = s.age_band, team_id = s.team_id " +
+            "when not matched then insert (member_id, username, username_normalized, age, age_band, team_id) " +
+            "values (next value for member_seq, s.username, s.username_normalized, s.age, s.age_band, s.team_id)";
+
+    public static final int DEFAULT_UPSERT_BATCH_SIZE = 500;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final EntityChangePublisher entityChangePublisher;
+
+    public MemberBulkRepository(EntityManager em, JPAQueryFactory queryFactory, JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager, EntityChangePublisher entityChangePublisher) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityChangePublisher = entityChangePublisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 사용 예시) 18살 미만 회원 나이 1 더하기
+     * memberBulkRepository.update(
+     *         member.age.lt(18),
+     *         clause -> clause.set(member.age, member.age.add(1)),
+     *         BulkChunkOption.of(500).throttle(10));
+     *
+     * 참고: 벌크 update는 @PreUpdate가 안불리므로 청크마다 username_normalized, age_band 같은 파생 컬럼을 다시 맞춰준다.
+     */
+    public long update(Predicate where, Consumer<JPAUpdateClause> setClause, BulkChunkOption option) {
+        return executeInChunks(where, option, range -> {
+            JPAUpdateClause clause = queryFactory
+                    .update(member)
+                    .where(where, range);
+            setClause.accept(clause);
+            long count = clause.execute();
+            syncDerivedColumns(range);
+            return count;
+        });
+    }
+
+    public long delete(Predicate where, BulkChunkOption option) {
+        return executeInChunks(where, option, range -> queryFactory
+                .delete(member)
+                .where(where, range)
+                .execute());
+    }
+
+    /**
+     * 외부 시스템의 회원 레코드를 username 기준으로 upsert
+     * save()로 하면 회원마다 select + insert/update 라서 2번씩 왕복하는데,
+     * 여기서는 배치마다 "기존 username 조회 1번 + MERGE JDBC 배치 1번" 으로 끝난다.
+     * 같은 배치 안에 같은 username이 여러 번 있으면 마지막 레코드만 반영한다.
+     * 참고: username에 unique 제약은 없어서 DB에 같은 username 회원이 이미 여러 명이면 어느 회원을 바꿀지 정할 수 없다.
+     * (MERGE는 그 회원들을 전부 바꿔버리고 inserted/updated 건수도 안맞게 됨)
+     * -> 그런 username이 배치에 있으면 MERGE 전에 IllegalStateException (트랜잭션 전체 롤백)
+     * 참고: 아래 오버로드를 this로 부르면 프록시를 안거쳐서 @Transactional이 안먹으니 여기에도 붙여준다.
+     */
+    @Transactional
+    public UpsertResult upsert(Stream<MemberUpsertDto> records) {
+        return upsert(records, DEFAULT_UPSERT_BATCH_SIZE);
+    }
+
+    @Transactional
+    public UpsertResult upsert(Stream<MemberUpsertDto> records, int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive!");
+
+        // JPA로 아직 flush 안된 회원이 있으면 MERGE가 못보니까 먼저 flush
+        em.flush();
+
+        UpsertResult result = new UpsertResult(0, 0);
+        Map<String, MemberUpsertDto> batch = new LinkedHashMap<>();
+        Iterator<MemberUpsertDto> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            MemberUpsertDto record = iterator.next();
+            Assert.notNull(record.getUsername(), "username must not be null!");
+            batch.put(record.getUsername(), record);
+            if (batch.size() >= batchSize) {
+                result = upsertBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            result = upsertBatch(batch, result);
+        }
+
+        em.getEntityManagerFactory().getCache().evict(Member.class);
+        return result;
+    }
+
+    private UpsertResult upsertBatch(Map<String, MemberUpsertDto> batch, UpsertResult result) {
+        Set<String> existing = new HashSet<>();
+        Set<String> ambiguous = new LinkedHashSet<>();
+        for (String username : queryFactory
+                .select(member.username)
+                .from(member)
+                .where(member.username.in(batch.keySet()))
+                .fetch()) {
+            if (!existing.add(username)) {
+                ambiguous.add(username);
+            }
+        }
+        if (!ambiguous.isEmpty()) {
+            throw new IllegalStateException("username is not unique, can not upsert: " + ambiguous);
+        }
+
+        List<MemberUpsertDto> records = new ArrayList<>(batch.values());
+        jdbcTemplate.batchUpdate(MERGE_MEMBER_SQL, records, records.size(), (ps, record) -> {
+            ps.setString(1, record.getUsername());
+            ps.setString(2, Member.normalizeUsername(record.getUsername()));
+            ps.setInt(3, record.getAge());
+            ps.setInt(4, AgeBand.of(record.getAge()).ordinal());
+            ps.setObject(5, record.getTeamId());
+        });
+
+        // JDBC로 바꿨으니 영속성 컨텍스트에 있는 같은 username 회원은 detach (다음 조회때 새로 읽어옴)
+        PersistenceContexts.detach(em, Member.class, m -> batch.containsKey(m.getUsername()));
+        entityChangePublisher.publishBulk(Member.class);
+
+        long updated = existing.size();
+        return result.plus(records.size() - updated, updated);
+    }
+
+    /**
+     * 청크 범위 안에서 파생 컬럼이 원본 컬럼과 안맞는 행만 고친다.
+     * - username_normalized: lower(username) (Member.normalizeUsername과 같은 규칙)
+     * - age_band: 구간이 몇 개 안되니 CASE 식 대신 구간마다 update 한번씩 실행한다.
+     */
+    private void syncDerivedColumns(BooleanExpression range) {
+        queryFactory
+                .update(member)
+                .set(member.usernameNormalized, member.username.lower())
+                .where(range,
+                        member.usernameNormalized.ne(member.username.lower())
+                                .or(member.usernameNormalized.isNull().and(member.username.isNotNull())))
+                .execute();
+
+        for (AgeBand band : AgeBand.values()) {
+            queryFactory
+                    .update(member)
+                    .set(member.ageBand, band)
+                    .where(range,
+                            band.agePredicate(member.age),
+                            member.ageBand.ne(band).or(member.ageBand.isNull()))
+                    .execute();
+        }
+    }
+
+    private long executeInChunks(Predicate where, BulkChunkOption option, ToLongFunction<BooleanExpression> chunkStatement) {
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(),
+                "Chunked bulk operation commits per chunk, so it must not be called inside a transaction!");
+
+        // 대상 회원의 id 범위를 먼저 구하고, 그 범위를 chunkSize 만큼씩 잘라서 처리
+        Tuple bounds = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne();
+
+        if (bounds == null || bounds.get(0, Long.class) == null) {
+            return 0;
+        }
+
+        long minId = bounds.get(0, Long.class);
+        long maxId = bounds.get(1, Long.class);
+        long totalAffected = 0;
+        int chunkIndex = 0;
+
+        for (long fromId = minId; fromId <= maxId; fromId += option.getChunkSize()) {
+            final long chunkFromId = fromId;
+            final long chunkToId = Math.min(fromId + option.getChunkSize() - 1, maxId);
+
+            Long affected = chunkTransaction.execute(status -> {
+                long count = chunkStatement.applyAsLong(member.id.between(chunkFromId, chunkToId));
+                PersistenceContexts.detach(em, Member.class, m -> isInRange(m, chunkFromId, chunkToId));
+                // 하이버네이트 이벤트가 안나오는 변경이라 직접 알려줘야 함 (캐시 버전 등)
+                entityChangePublisher.publishBulk(Member.class);
+                return count;
+            });
+
+            totalAffected += affected;
+            option.getListener().onChunk(new BulkProgress(chunkIndex++, chunkFromId, chunkToId, minId, maxId, affected, totalAffected));
+
+            if (chunkToId < maxId) {
+                throttle(option.getThrottleMillis());
+            }
+        }
+
+        em.getEntityManagerFactory().getCache().evict(Member.class);
+        return totalAffected;
+    }
+
+    private boolean isInRange(Member m, long fromId, long toId) {
+        return m.getId() != null && m.getId() >= fromId && m.getId() <= toId;
+    }
+
+    private void throttle(long throttleMillis) {
+        if (throttleMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(throttleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chunked bulk operation interrupted!", e);
+        }
+    }
+}
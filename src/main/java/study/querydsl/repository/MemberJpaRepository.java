@@ -10,8 +10,14 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.search.MemberSearchPredicates;
+import study.querydsl.repository.search.UsernameIndex;
+import study.querydsl.repository.support.SingleFlight;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,8 +31,13 @@ import static study.querydsl.entity.QTeam.*;
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
+    private static final Class<?>[] MEMBER_TEAM = {Member.class, Team.class};
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final UsernameIndex usernameIndex;
+    private final SingleFlight singleFlight;
+    private final MemberSearchPredicates memberSearchPredicates;
 
     // 아래처럼 JPAQueryFactory new키워드로 직접 주입해줘도 되고, Bean에 등록을 해두고 사용해도 됨 (테스트 용이성은 전자가 나음)
 //    public MemberJpaRepository(EntityManager em) {
@@ -75,8 +86,9 @@ public class MemberJpaRepository {
         BooleanBuilder builder = new BooleanBuilder();
         // 파라미터가 null만 들어오는 게 아니라 빈배열 ""도 들어오는지라 그냥 체크하면 안되고 StringUtils.hasText체크해야 둘다 필터할 수 있음
         if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+            builder.and(usernameEq(condition.getUsername(), condition.getUsernameIgnoreCase()));
         }
+        builder.and(usernameIndex.predicate(condition.getUsernamePrefix(), condition.getUsernameContains()));
         if (hasText(condition.getTeamName())) {
             builder.and(team.name.eq(condition.getTeamName()));
         }
@@ -103,8 +115,20 @@ public class MemberJpaRepository {
 
 
     // builder보다 더 깔끔하고 한 눈에 들어오는 방식 (재사용도 가능!)
+    // 같은 조건으로 동시에 들어온 요청은 쿼리 한번의 결과를 같이 받음 (SingleFlight 참고)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        MemberSearchCondition snapshot = condition.toBuilder().build();
+        return singleFlight.execute(Arrays.asList("MemberJpaRepository.search", snapshot), MEMBER_TEAM,
+                () -> fetchSearch(snapshot));
+    }
+
+    // where 조건은 MemberSearchPredicates로 조합 (조건끼리 모순이면 쿼리 없이 빈 결과)
+    private List<MemberTeamDto> fetchSearch(MemberSearchCondition condition) {
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Collections.emptyList();
+        }
+        return where.applyTo(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -113,47 +137,29 @@ public class MemberJpaRepository {
                         team.name.as("teamName")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .leftJoin(member.team, team))
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private BooleanExpression usernameEq(String username, Boolean ignoreCase) {
+        if (!hasText(username)) {
+            return null;
+        }
+        return Boolean.TRUE.equals(ignoreCase)
+                ? member.usernameNormalized.eq(Member.normalizeUsername(username))
+                : member.username.eq(username);
     }
 
-    // dto가 아닌 member 자체를 반환하는 쿼리팩토리 로직을 만드는 경우에도, 위에서 만든 BooleanExpression 메서드를 재사용할 수 있음
+    // dto가 아닌 member 자체를 반환하는 쿼리팩토리 로직을 만드는 경우에도, 같은 조건 조합(MemberSearchPredicates)을 재사용할 수 있음
+    // ageGoe, ageLoe가 같이 있으면 between 하나로 합쳐짐
     public List<Member> searchMember(MemberSearchCondition condition) {
-        return queryFactory
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Collections.emptyList();
+        }
+        return where.applyTo(queryFactory
                 .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageBetween(condition.getAgeGoe(), condition.getAgeLoe())
-                )
+                .leftJoin(member.team, team))
                 .fetch();
     }
-
-    // 이런식으로 조합할 수도 있음. 4가지를 다 조합할 수도 있음 (단, null 체크만 조심!)
-    private BooleanExpression ageBetween(int ageGoeVal, int ageLoeVal) {
-        return ageGoe(ageGoeVal).and(ageLoe(ageLoeVal));
-    }
 }
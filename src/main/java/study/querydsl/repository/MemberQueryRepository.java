@@ -1,16 +1,16 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.search.MemberSearchPredicates;
 
 import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
@@ -20,13 +20,19 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberQueryRepository {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchPredicates memberSearchPredicates;
 
-    public MemberQueryRepository(EntityManager em) {
+    public MemberQueryRepository(EntityManager em, MemberSearchPredicates memberSearchPredicates) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberSearchPredicates = memberSearchPredicates;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Collections.emptyList();
+        }
+        return where.applyTo(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -35,29 +41,7 @@ public class MemberQueryRepository {
                         team.name.as("teamName")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .leftJoin(member.team, team))
                 .fetch();
     }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
 }
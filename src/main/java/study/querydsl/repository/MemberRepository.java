@@ -33,4 +33,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
  * 참고: 정렬( Sort )은 조건이 조금만 복잡해져도 Pageable 의 Sort 기능을 사용하기 어렵다.
  * 루트 엔티티 범위를 넘어가는 동적 정렬 기능이 필요하면 스프링 데이터 페이징이 제공하는 Sort 를 사용하기 보다는,
  * 파라미터를 받아서 직접 처리하는 것을 권장한다.
+ *
+ * 참고: 위 예시처럼 아무 프로퍼티나 PathBuilder로 바꾸면 인덱스 없는 컬럼으로도 정렬돼서 전체 정렬이 일어난다.
+ * 이 프로젝트에서는 SortTranslator(MemberSorts)로 허용한 정렬키만 변환하고, 마지막에 id를 붙여서 순서를 고정한다.
  */
\ No newline at end of file
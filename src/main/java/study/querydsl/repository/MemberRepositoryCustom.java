@@ -5,6 +5,8 @@ import org.springframework.data.domain.Pageable;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.FetchPlan;
 
 import java.util.List;
 
@@ -14,4 +16,7 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    // id 여러 개를 한번에 조회 - 입력한 id 순서대로, 없는 id는 빠짐 (BatchIdLoader 참고)
+    List<Member> findAllByIdsInOrder(List<Long> ids, FetchPlan fetchPlan);
 }
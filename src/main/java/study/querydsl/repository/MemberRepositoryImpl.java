@@ -1,7 +1,7 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -9,34 +9,66 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.search.MemberSearchPredicates;
+import study.querydsl.repository.search.MemberSorts;
+import study.querydsl.repository.support.BatchIdLoader;
+import study.querydsl.repository.support.FetchPlan;
+import study.querydsl.repository.support.PagePrefetcher;
+import study.querydsl.repository.support.SingleFlight;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
 
+    private static final Class<?>[] MEMBER_TEAM = {Member.class, Team.class};
+
     private final JPAQueryFactory queryFactory;
+    private final PagePrefetcher pagePrefetcher;
+    private final SingleFlight singleFlight;
+    private final MemberSearchPredicates memberSearchPredicates;
+    private final MemberSorts memberSorts;
+    private final BatchIdLoader batchIdLoader;
 
     // QuerydslRepositorySupport를 적용하려면 super()로 부모생성자를 받아와야함.
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, PagePrefetcher pagePrefetcher, SingleFlight singleFlight,
+                                MemberSearchPredicates memberSearchPredicates, MemberSorts memberSorts) {
         super(Member.class);
         this.queryFactory = new JPAQueryFactory(em);
+        this.pagePrefetcher = pagePrefetcher;
+        this.singleFlight = singleFlight;
+        this.memberSearchPredicates = memberSearchPredicates;
+        this.memberSorts = memberSorts;
+        this.batchIdLoader = new BatchIdLoader(em);
     }
 
+    // 같은 조건으로 동시에 들어온 요청은 쿼리 한번의 결과를 같이 받음 (SingleFlight 참고)
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchCondition snapshot = condition.toBuilder().build();
+        return singleFlight.execute(Arrays.asList("MemberRepositoryImpl.search", snapshot), MEMBER_TEAM,
+                () -> fetchSearch(snapshot));
+    }
 
-        return queryFactory
+    // where 조건은 MemberSearchPredicates로 조합 (조건끼리 모순이면 쿼리 없이 빈 결과)
+    private List<MemberTeamDto> fetchSearch(MemberSearchCondition condition) {
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Collections.emptyList();
+        }
+        return where.applyTo(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -45,26 +77,17 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         team.name.as("teamName")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .leftJoin(member.team, team))
                 .fetch();
     }
 
     public List<MemberTeamDto> search2(MemberSearchCondition condition) {
-
-        return from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Collections.emptyList();
+        }
+        return where.applyTo(from(member)
+                .leftJoin(member.team, team))
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -77,7 +100,12 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        OrderSpecifier<?>[] orderBy = memberSorts.orderBy(pageable.getSort());
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
+        QueryResults<MemberTeamDto> results = where.applyTo(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -86,13 +114,8 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         team.name.as("teamName")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .leftJoin(member.team, team))
+                .orderBy(orderBy)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetchResults();
@@ -104,14 +127,14 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
     }
 
     public Page<MemberTeamDto> searchPageSimple2(MemberSearchCondition condition, Pageable pageable) {
-        JPQLQuery<MemberTeamDto> jpqlQuery = from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        // 정렬은 허용한 정렬키만 (getQuerydsl().applyPagination은 아무 프로퍼티로나 정렬해줘서 직접 처리, MemberSorts 참고)
+        OrderSpecifier<?>[] orderBy = memberSorts.orderBy(pageable.getSort());
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
+        JPQLQuery<MemberTeamDto> jpqlQuery = where.applyTo(from(member)
+                .leftJoin(member.team, team))
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -120,7 +143,11 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         team.name.as("teamName")
                 ));
 
-        QueryResults<MemberTeamDto> results = getQuerydsl().applyPagination(pageable, jpqlQuery).fetchResults();
+        QueryResults<MemberTeamDto> results = jpqlQuery
+                .orderBy(orderBy)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetchResults();
 
         List<MemberTeamDto> content = results.getResults();
         long totalCnt = results.getTotal();
@@ -130,11 +157,22 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = getMemberTeamDtos(condition, pageable); // 이렇게 따로 메서드를 만들어 리팩토링해도 좋음
+        // 정렬은 미리 변환 (허용하지 않은 정렬키면 쿼리 전에 InvalidSortException)
+        OrderSpecifier<?>[] orderBy = memberSorts.orderBy(pageable.getSort());
+
+        // 조건끼리 모순이면 content, count 쿼리 둘 다 생략
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
+
+        // 이렇게 따로 메서드를 만들어 리팩토링해도 좋음
+        // 다음 페이지는 PagePrefetcher가 미리 가져와 둠 (조건은 복사해서 키로 사용 - 호출한 쪽에서 바꿔도 영향 없게)
+        MemberSearchCondition snapshot = condition.toBuilder().build();
 
         // 별도의 카운트 쿼리를 작성하면 더 최적화가 가능해서 효율적일 수 있음!
         // 위와 마찬가지로 따로 메서드를 만들어 리팩토링해도 좋음
-        JPAQuery<Long> countQuery = getCountQuery(condition);
+        // 참고: count 쿼리도 다음 페이지를 미리 가져올 때 다른 스레드에서 실행되니 호출할 때마다 새로 만든다.
 
 //        return new PageImpl<>(content, pageable, totalCnt);
         /**
@@ -142,12 +180,17 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
          * count 쿼리가 생략 가능한 경우 생략해서 처리!!!
          *  - 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
          *  - 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
+         * -> PagePrefetcher가 안에서 PageableExecutionUtils로 처리하고, 미리 가져온 페이지면 저장해둔 전체 건수를 씀
          */
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchOne());
+        return pagePrefetcher.fetch(
+                Arrays.asList("searchPageComplex", snapshot), pageable, MEMBER_TEAM,
+                page -> getMemberTeamDtos(where, orderBy, page),
+                () -> getCountQuery(where).fetchOne());
     }
 
-    private List<MemberTeamDto> getMemberTeamDtos(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+    private List<MemberTeamDto> getMemberTeamDtos(MemberSearchPredicates.Where where, OrderSpecifier<?>[] orderBy,
+                                                  Pageable pageable) {
+        List<MemberTeamDto> content = where.applyTo(queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -156,13 +199,8 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         team.name.as("teamName")
                 ))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .leftJoin(member.team, team))
+                .orderBy(orderBy)
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
@@ -171,33 +209,18 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
     }
 
 
-    private JPAQuery<Long> getCountQuery(MemberSearchCondition condition) {
-        JPAQuery<Long> countQuery = queryFactory
+    private JPAQuery<Long> getCountQuery(MemberSearchPredicates.Where where) {
+        JPAQuery<Long> countQuery = where.applyTo(queryFactory
                 .select(member.count())
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                .leftJoin(member.team, team));
         return countQuery;
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // 영속성 컨텍스트 확인부터 IN 쿼리까지 같은 영속성 컨텍스트에서 처리하도록 트랜잭션 안에서 실행
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> findAllByIdsInOrder(List<Long> ids, FetchPlan fetchPlan) {
+        return batchIdLoader.load(member, member.id, ids, fetchPlan);
     }
 }
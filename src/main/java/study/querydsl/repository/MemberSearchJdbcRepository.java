@@ -0,0 +1,147 @@
+package study.querydsl.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.search.MemberSearchConditionAnalyzer;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberTeamDto 검색의 JDBC 빠른 경로 (MemberJpaRepository.search와 같은 결과)
+ *
+ * select(new QMemberTeamDto(...))는 JPQL 파싱/번역, 하이버네이트의 튜플 변환, 로우마다 생성자 리플렉션 호출을 거친다.
+ * 결과가 많은 검색에서는 이 비용이 커서, SQL을 직접 실행하고 ResultSet을 MemberTeamDtoRowMapper로 바로 DTO에 담는다.
+ *
+ * - 검색조건 조합(7개 조건 -> 128가지)마다 SQL 문자열을 한번만 만들어서 재사용
+ *   -> 같은 SQL 문자열이라 드라이버/DB의 prepared statement, 실행계획 캐시를 그대로 탄다.
+ * - 파라미터도 PreparedStatement에 직접 set 해서 박싱 없음
+ *
+ * 참고: 회원명 접두어/부분 검색은 UsernameIndex 없이 like 조건으로 검색한다. (id 개수가 매번 달라서 SQL을 미리 만들 수 없음)
+ * 참고: JPA를 거치지 않으니 엔티티 매핑(테이블, 컬럼명)이 바뀌면 여기 SQL도 같이 바꿔줘야 한다.
+ */
+@Repository
+public class MemberSearchJdbcRepository {
+
+    private static final String SELECT_MEMBER_TEAM =
+            "select m.member_id, m.username, m.age, t.id, t.name " +
+            "from member m " +
+            "left outer join team t on m.team_id = t.id";
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int USERNAME_PREFIX = 1 << 4;
+    private static final int USERNAME_CONTAINS = 1 << 5;
+    private static final int USERNAME_IGNORE_CASE = 1 << 6;
+
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final String[] sqlByShape = new String[1 << 7];
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberSearchConditionAnalyzer analyzer;
+
+    public MemberSearchJdbcRepository(EntityManager em, DataSource dataSource, MemberSearchConditionAnalyzer analyzer) {
+        this.em = em;
+        this.analyzer = analyzer;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(DEFAULT_FETCH_SIZE);
+        for (int shape = 0; shape < sqlByShape.length; shape++) {
+            sqlByShape[shape] = buildSql(shape);
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition searchCondition) {
+        // 조건끼리 모순이면 SQL 없이 빈 결과
+        MemberSearchConditionAnalyzer.Analysis analysis = analyzer.analyze(searchCondition);
+        if (analysis.isUnsatisfiable()) {
+            return Collections.emptyList();
+        }
+        MemberSearchCondition condition = analysis.getCondition();
+        String username = condition.getUsername();
+        String teamName = condition.getTeamName();
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        String usernamePrefix = condition.getUsernamePrefix();
+        String usernameContains = condition.getUsernameContains();
+
+        int shape = (hasText(username) ? USERNAME : 0)
+                | (hasText(teamName) ? TEAM_NAME : 0)
+                | (ageGoe != null ? AGE_GOE : 0)
+                | (ageLoe != null ? AGE_LOE : 0)
+                | (hasText(usernamePrefix) ? USERNAME_PREFIX : 0)
+                | (hasText(usernameContains) ? USERNAME_CONTAINS : 0)
+                | (hasText(username) && Boolean.TRUE.equals(condition.getUsernameIgnoreCase()) ? USERNAME_IGNORE_CASE : 0);
+
+        // JPQL 쿼리와 달리 자동 flush가 안되니까, 같은 트랜잭션에서 바꾼 내용이 보이도록 직접 flush
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.flush();
+        }
+
+        return jdbcTemplate.query(sqlByShape[shape], ps -> {
+            int index = 1;
+            if ((shape & USERNAME) != 0) {
+                ps.setString(index++, (shape & USERNAME_IGNORE_CASE) != 0 ? Member.normalizeUsername(username) : username);
+            }
+            if ((shape & TEAM_NAME) != 0) {
+                ps.setString(index++, teamName);
+            }
+            if ((shape & AGE_GOE) != 0) {
+                ps.setInt(index++, ageGoe);
+            }
+            if ((shape & AGE_LOE) != 0) {
+                ps.setInt(index++, ageLoe);
+            }
+            if ((shape & USERNAME_PREFIX) != 0) {
+                ps.setString(index++, escapeLike(usernamePrefix) + "%");
+            }
+            if ((shape & USERNAME_CONTAINS) != 0) {
+                ps.setString(index, "%" + escapeLike(usernameContains) + "%");
+            }
+        }, MemberTeamDtoRowMapper.INSTANCE);
+    }
+
+    private static String buildSql(int shape) {
+        StringBuilder sql = new StringBuilder(SELECT_MEMBER_TEAM);
+        String prefix = " where ";
+        if ((shape & USERNAME) != 0) {
+            sql.append(prefix).append((shape & USERNAME_IGNORE_CASE) != 0 ? "m.username_normalized = ?" : "m.username = ?");
+            prefix = " and ";
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            sql.append(prefix).append("t.name = ?");
+            prefix = " and ";
+        }
+        if ((shape & AGE_GOE) != 0) {
+            sql.append(prefix).append("m.age >= ?");
+            prefix = " and ";
+        }
+        if ((shape & AGE_LOE) != 0) {
+            sql.append(prefix).append("m.age <= ?");
+            prefix = " and ";
+        }
+        if ((shape & USERNAME_PREFIX) != 0) {
+            sql.append(prefix).append("m.username like ? escape '!'");
+            prefix = " and ";
+        }
+        if ((shape & USERNAME_CONTAINS) != 0) {
+            sql.append(prefix).append("m.username like ? escape '!'");
+        }
+        return sql.toString();
+    }
+
+    // 검색어 안의 %, _ 가 와일드카드로 해석되지 않게 (Querydsl의 startsWith/contains와 같은 escape 문자)
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
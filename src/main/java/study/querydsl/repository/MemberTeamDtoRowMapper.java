@@ -0,0 +1,36 @@
+package study.querydsl.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * MemberTeamDto 전용 RowMapper
+ * 컬럼 순서가 고정된 SQL(MemberSearchJdbcRepository)을 전제로 인덱스로 바로 꺼내서 생성자를 호출한다.
+ * 리플렉션(BeanPropertyRowMapper, Projections.bean)도 없고, age는 getInt()로 꺼내서 박싱도 없음.
+ */
+public final class MemberTeamDtoRowMapper implements RowMapper<MemberTeamDto> {
+
+    public static final MemberTeamDtoRowMapper INSTANCE = new MemberTeamDtoRowMapper();
+
+    private static final int MEMBER_ID = 1;
+    private static final int USERNAME = 2;
+    private static final int AGE = 3;
+    private static final int TEAM_ID = 4;
+    private static final int TEAM_NAME = 5;
+
+    private MemberTeamDtoRowMapper() {
+    }
+
+    @Override
+    public MemberTeamDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        long memberId = rs.getLong(MEMBER_ID);
+        String username = rs.getString(USERNAME);
+        int age = rs.getInt(AGE);
+        long teamId = rs.getLong(TEAM_ID);
+        Long nullableTeamId = rs.wasNull() ? null : teamId; // left join이라 팀이 없으면 null
+        return new MemberTeamDto(memberId, username, age, nullableTeamId, rs.getString(TEAM_NAME));
+    }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
@@ -8,20 +9,45 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.search.MemberSearchPredicates;
+import study.querydsl.repository.search.MemberSorts;
+import study.querydsl.repository.snapshot.MemberColumnarSnapshot;
+import study.querydsl.repository.support.EntityChangePublisher;
+import study.querydsl.repository.support.FetchPlan;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
+import study.querydsl.repository.support.SortTranslator;
+import study.querydsl.repository.support.StreamOption;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository() {
+    private final MemberSearchPredicates memberSearchPredicates;
+    private final MemberSorts memberSorts;
+    private final MemberColumnarSnapshot memberSnapshot;
+    private final EntityChangePublisher entityChangePublisher;
+
+    public MemberTestRepository(MemberSearchPredicates memberSearchPredicates, MemberSorts memberSorts,
+                                MemberColumnarSnapshot memberSnapshot, EntityChangePublisher entityChangePublisher) {
         super(Member.class);
+        this.memberSearchPredicates = memberSearchPredicates;
+        this.memberSorts = memberSorts;
+        this.memberSnapshot = memberSnapshot;
+        this.entityChangePublisher = entityChangePublisher;
     }
 
     public List<Member> basicSelect() {
@@ -35,69 +61,154 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                 .fetch();
     }
 
-    public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
-        JPAQuery<Member> query = selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+    // 같은 쿼리로 엔드포인트마다 필요한 연관관계만 가져옴 (FetchPlan.LEAN, FetchPlan.of(member.team) ...)
+    public List<Member> basicSelectFrom(FetchPlan fetchPlan) {
+        return selectFrom(member, fetchPlan)
+                .orderBy(member.id.asc())
+                .fetch();
+    }
 
-        List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
+    /**
+     * 나이가 가장 많은 회원 (QuerydslBasicTest.subQuery)
+     * - 스냅샷이 켜져 있으면 max(age)는 메모리 스냅샷에서 구하고 DB에는 age = ? 쿼리 하나만 (MemberColumnarSnapshot 참고)
+     * - 꺼져 있거나, 현재 트랜잭션에 아직 커밋 안된 회원 변경이 있으면 (스냅샷은 커밋 후에 반영되니까)
+     *   max(age) 서브쿼리를 한번 먼저 실행해서 값으로 바꿈
+     */
+    public List<Member> findOldest() {
+        if (memberSnapshot.isEnabled() && !entityChangePublisher.hasUncommittedChanges(Member.class)) {
+            OptionalInt maxAge = memberSnapshot.maxAge(null);
+            if (!maxAge.isPresent()) {
+                return Collections.emptyList();
+            }
+            return selectFrom(member)
+                    .where(member.age.eq(maxAge.getAsInt()))
+                    .fetch();
+        }
+
+        QMember memberSub = new QMember("memberSub");
+        return rewriteSubQueries(selectFrom(member)
+                .where(member.age.eq(
+                        JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub)
+                )))
+                .fetch();
+    }
+
+    // 조건에 맞는 회원을 리스트로 모으지 않고 한 건씩 읽음 (try-with-resources로 닫아야 함, Querydsl4RepositorySupport.stream 참고)
+    public Stream<Member> stream(MemberSearchCondition condition, StreamOption option) {
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Stream.empty();
+        }
+        return stream(where.applyTo(selectFrom(member)
+                .leftJoin(member.team, team))
+                .orderBy(member.id.asc()), option);
+    }
+
+    public long forEach(MemberSearchCondition condition, StreamOption option, Consumer<Member> action) {
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return 0;
+        }
+        return forEach(where.applyTo(selectFrom(member)
+                .leftJoin(member.team, team))
+                .orderBy(member.id.asc()), option, action);
+    }
+
+    public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
+        OrderSpecifier<?>[] orderBy = memberSorts.orderBy(pageable.getSort());
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
+        JPAQuery<Member> query = where.applyTo(selectFrom(member)
+                .leftJoin(member.team, team));
+
+        // getQuerydsl().applyPagination은 아무 프로퍼티로나 정렬해주므로 정렬은 MemberSorts로 직접
+        List<Member> content = query
+                .orderBy(orderBy)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
 
         return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
     }
 
+    // 정렬은 MemberSorts에 등록한 정렬키만 (username, ageBand, id) + id tiebreaker
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
-        return applyPagination(pageable, query -> query
+        SortTranslator sortTranslator = sortTranslator(pageable);
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
+        return applyPagination(pageable, sortTranslator, query -> where.applyTo(query
                 .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .leftJoin(member.team, team))
         );
     }
 
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
+        SortTranslator sortTranslator = sortTranslator(pageable);
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
         return applyPagination(
                 pageable,
-                contentQuery -> contentQuery
+                sortTranslator,
+                contentQuery -> where.applyTo(contentQuery
                         .selectFrom(member)
-                        .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        ),
-                countQuery -> countQuery
+                        .leftJoin(member.team, team)),
+                countQuery -> where.applyTo(countQuery
                         .select(member.id)
                         .from(member)
-                        .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        )
+                        .leftJoin(member.team, team))
         );
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable, FetchPlan fetchPlan) {
+        SortTranslator sortTranslator = sortTranslator(pageable);
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(condition);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
+        return applyPagination(pageable, sortTranslator, fetchPlan, query -> where.applyTo(query
+                .selectFrom(member)
+                .leftJoin(member.team, team))
+        );
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    // 미리 가져온 페이지는 다른 스레드에서 조회하므로 엔티티가 아니라 DTO로 받음 (PagePrefetcher 참고)
+    public Page<MemberTeamDto> applyPaginationWithPrefetch(MemberSearchCondition condition, Pageable pageable) {
+        SortTranslator sortTranslator = sortTranslator(pageable);
+        MemberSearchCondition snapshot = condition.toBuilder().build();
+        MemberSearchPredicates.Where where = memberSearchPredicates.compose(snapshot);
+        if (where.isEmptyResult()) {
+            return Page.empty(pageable);
+        }
+        return applyPagination(
+                pageable,
+                sortTranslator,
+                Arrays.asList("applyPaginationWithPrefetch", snapshot),
+                new Class<?>[]{Member.class, Team.class},
+                query -> where.applyTo(query
+                        .select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")
+                        ))
+                        .from(member)
+                        .leftJoin(member.team, team))
+        );
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // 조건이 모순이라 조회를 안하더라도 정렬키는 먼저 검증 (허용하지 않은 정렬키면 InvalidSortException)
+    private SortTranslator sortTranslator(Pageable pageable) {
+        SortTranslator sortTranslator = memberSorts.getSortTranslator();
+        sortTranslator.translate(pageable.getSort());
+        return sortTranslator;
     }
 }
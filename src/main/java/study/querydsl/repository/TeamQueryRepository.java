@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
+import study.querydsl.repository.support.SortTranslator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀을 소속 회원과 함께 페이징 조회
+ *
+ * selectFrom(team).join(team.members, member).fetchJoin() 에 offset/limit을 주면
+ * 컬렉션 페치 조인이라 하이버네이트가 SQL에서 페이징을 못하고
+ * "firstResult/maxResults specified with collection fetch; applying in memory!" 경고를 내면서 전체를 메모리로 가져온다.
+ *
+ * 그래서 쿼리를 나눈다. (페이지 크기에 비례하는 만큼만 읽음)
+ * 1. 팀만 SQL로 페이징
+ * 2. 그 페이지 팀들의 회원을 IN 쿼리 한번으로 조회
+ * 3. 팀 id로 묶어서 조립
+ */
+@Repository
+public class TeamQueryRepository extends Querydsl4RepositorySupport {
+
+    // 팀 정렬키: id(PK), name(idx_team_name) + 정렬값이 같은 팀끼리 페이지마다 순서가 바뀌지 않게 id tiebreaker
+    private final SortTranslator sortTranslator;
+
+    public TeamQueryRepository(@Value("${querydsl.sort.strict:true}") boolean strict) {
+        super(Team.class);
+        this.sortTranslator = SortTranslator.builder(team.id)
+                .key("id", team.id)
+                .key("name", team.name)
+                .strict(strict)
+                .build();
+    }
+
+    public Page<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teams = select(team.id, team.name)
+                .from(team)
+                .orderBy(sortTranslator.translate(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        if (teams.isEmpty()) {
+            return PageableExecutionUtils.getPage(new ArrayList<>(), pageable, this::countTeams);
+        }
+
+        // 페이지 순서를 유지하기 위해 LinkedHashMap 사용
+        Map<Long, TeamMembersDto> result = new LinkedHashMap<>();
+        for (Tuple tuple : teams) {
+            Long teamId = tuple.get(team.id);
+            result.put(teamId, new TeamMembersDto(teamId, tuple.get(team.name)));
+        }
+
+        List<Tuple> members = select(member.team.id, new QMemberDto(member.username, member.age))
+                .from(member)
+                .where(member.team.id.in(result.keySet()))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        for (Tuple tuple : members) {
+            MemberDto memberDto = tuple.get(1, MemberDto.class);
+            result.get(tuple.get(member.team.id)).getMembers().add(memberDto);
+        }
+
+        List<TeamMembersDto> content = new ArrayList<>(result.values());
+        return PageableExecutionUtils.getPage(content, pageable, this::countTeams);
+    }
+
+    private long countTeams() {
+        return select(team.count())
+                .from(team)
+                .fetchOne();
+    }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityChangeEvent;
+import study.querydsl.repository.support.EntityChangeHandler;
+
+import java.util.Objects;
+
+/**
+ * 회원 insert/update/delete, 팀 변경이 일어날 때 team_stats 테이블을 증분으로 갱신
+ *
+ * 하이버네이트 flush 중(onChange)에 같은 트랜잭션의 JDBC 커넥션으로 바로 반영하므로
+ * 회원 변경이 롤백되면 통계 변경도 같이 롤백된다.
+ * - 회원수, 나이 합계: 정확하게 +/- 로 증분 반영
+ * - 최소/최대 나이: 추가는 least/greatest로 반영, 빠지는 값이 최소/최대였으면 stale 표시 -> 조회 때 재계산
+ * - 벌크 연산(BULK): 어떤 회원이 바뀌었는지 모르니 전체 stale 표시
+ */
+@Component
+public class TeamStatsMaintainer implements EntityChangeHandler {
+
+    /**
+     * 행이 있으면 증분 반영, 없으면 첫 회원으로 insert 하는 H2 MERGE 문 (MemberBulkRepository 의 MERGE 와 같은 방식)
+     * update 해보고 0건이면 insert 하는 식으로 나누면 두 트랜잭션이 동시에 같은 팀의 첫 회원을 넣을 때
+     * 둘 다 0건을 보고 insert 해서 PK 중복으로 터지므로 한 문장으로 처리한다.
+     */
+    private static final String ADD_MEMBER =
+            "merge into team_stats t " +
+            "using (select cast(? as bigint) as team_id, cast(? as int) as age) s " +
+            "on t.team_id = s.team_id " +
+            "when matched then update set member_count = t.member_count + 1, age_sum = t.age_sum + s.age, " +
+            "age_min = least(coalesce(t.age_min, s.age), s.age), age_max = greatest(coalesce(t.age_max, s.age), s.age) " +
+            "when not matched then insert (team_id, member_count, age_sum, age_min, age_max, stale) " +
+            "values (s.team_id, 1, s.age, s.age, s.age, false)";
+
+    private static final String REMOVE_MEMBER =
+            "update team_stats set member_count = member_count - 1, age_sum = age_sum - ?, " +
+            "stale = case when age_min = ? or age_max = ? then true else stale end " +
+            "where team_id = ?";
+
+    // 이미 있으면 건드리지 않음 (조회 후 insert 로 나누면 위와 같은 이유로 동시 실행시 PK 중복)
+    private static final String ENSURE_ROW =
+            "merge into team_stats t " +
+            "using (select cast(? as bigint) as team_id) s " +
+            "on t.team_id = s.team_id " +
+            "when not matched then insert (team_id, member_count, age_sum, age_min, age_max, stale) " +
+            "values (s.team_id, 0, 0, null, null, false)";
+
+    private static final String MARK_ALL_STALE = "update team_stats set stale = true";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TeamStatsMaintainer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        if (event.isFor(Team.class) && event.getType() == EntityChangeEvent.Type.INSERT) {
+            ensureRow((Long) event.getId());
+        }
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+
+        switch (event.getType()) {
+            case INSERT:
+                add(teamId(event.getNewValue("team")), (Integer) event.getNewValue("age"));
+                break;
+            case DELETE:
+                remove(teamId(event.getOldValue("team")), (Integer) event.getOldValue("age"));
+                break;
+            case UPDATE:
+                if (!event.hasOldState()) {
+                    markAllStale();
+                    break;
+                }
+                Long oldTeamId = teamId(event.getOldValue("team"));
+                Long newTeamId = teamId(event.getNewValue("team"));
+                Integer oldAge = (Integer) event.getOldValue("age");
+                Integer newAge = (Integer) event.getNewValue("age");
+                if (Objects.equals(oldTeamId, newTeamId) && Objects.equals(oldAge, newAge)) {
+                    break;
+                }
+                remove(oldTeamId, oldAge);
+                add(newTeamId, newAge);
+                break;
+            case BULK:
+                markAllStale();
+                break;
+        }
+    }
+
+    private void add(Long teamId, int age) {
+        if (teamId == null) {
+            return; // 팀 없는 회원은 팀 통계에 안들어감
+        }
+        jdbcTemplate.update(ADD_MEMBER, teamId, age);
+    }
+
+    private void remove(Long teamId, int age) {
+        if (teamId == null) {
+            return;
+        }
+        jdbcTemplate.update(REMOVE_MEMBER, age, age, age, teamId);
+    }
+
+    // 회원보다 팀 insert가 늦게 실행될 수도 있으니 (order_inserts) 이미 있으면 건너뜀
+    private void ensureRow(Long teamId) {
+        jdbcTemplate.update(ENSURE_ROW, teamId);
+    }
+
+    private void markAllStale() {
+        jdbcTemplate.update(MARK_ALL_STALE);
+    }
+
+    private Long teamId(Object team) {
+        return team != null ? ((Team) team).getId() : null; // 프록시여도 getId()는 초기화 안함
+    }
+}
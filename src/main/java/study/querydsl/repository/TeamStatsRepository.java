@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * team_stats 집계 테이블 조회 (QuerydslBasicTest.group, aggregation 과 같은 결과를 팀 수 만큼만 읽어서 계산)
+ * stale 표시된 팀은 조회 전에 그 팀만 다시 계산한다.
+ */
+@Repository
+@Transactional
+public class TeamStatsRepository {
+
+    // 벌크 연산 뒤에 새로 생긴 팀 / 통계가 없는 팀 행을 채움
+    private static final String INSERT_MISSING_TEAMS =
+            "insert into team_stats (team_id, member_count, age_sum, age_min, age_max, stale) " +
+            "select t.id, 0, 0, null, null, true from team t " +
+            "where not exists (select 1 from team_stats s where s.team_id = t.id)";
+
+    private static final String RECOMPUTE_STALE =
+            "update team_stats s set " +
+            "member_count = (select count(*) from member m where m.team_id = s.team_id), " +
+            "age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = s.team_id), " +
+            "age_min = (select min(m.age) from member m where m.team_id = s.team_id), " +
+            "age_max = (select max(m.age) from member m where m.team_id = s.team_id), " +
+            "stale = false " +
+            "where s.stale = true";
+
+    private static final String COUNT_STALE = "select count(*) from team_stats where stale = true";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TeamStatsRepository(EntityManager em, JPAQueryFactory queryFactory, JdbcTemplate jdbcTemplate) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // 회원이 있는 팀별 통계 (팀 이름순)
+    public List<TeamStatsDto> findAll() {
+        // 아직 flush 안된 회원 변경이 있으면 통계에도 반영이 안된 상태라 먼저 flush
+        // (team_stats만 조회하는 JPQL은 회원 변경을 자동 flush 해주지 않음)
+        em.flush();
+        refreshStale();
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        team.id,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.ageMin,
+                        teamStats.ageMax
+                ))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .where(teamStats.memberCount.gt(0))
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    // 팀이 있는 전체 회원의 count, sum, avg, max, min (팀별 통계를 합쳐서 계산)
+    public TeamStatsDto total() {
+        long memberCount = 0;
+        long ageSum = 0;
+        Integer ageMin = null;
+        Integer ageMax = null;
+        for (TeamStatsDto stats : findAll()) {
+            memberCount += stats.getMemberCount();
+            ageSum += stats.getAgeSum();
+            ageMin = ageMin == null ? stats.getAgeMin() : Math.min(ageMin, stats.getAgeMin());
+            ageMax = ageMax == null ? stats.getAgeMax() : Math.max(ageMax, stats.getAgeMax());
+        }
+        return new TeamStatsDto(null, null, memberCount, ageSum, ageMin, ageMax);
+    }
+
+    public void refreshStale() {
+        Integer staleCount = jdbcTemplate.queryForObject(COUNT_STALE, Integer.class);
+        if (staleCount == null || staleCount == 0) {
+            return;
+        }
+        jdbcTemplate.update(INSERT_MISSING_TEAMS);
+        jdbcTemplate.update(RECOMPUTE_STALE);
+    }
+}
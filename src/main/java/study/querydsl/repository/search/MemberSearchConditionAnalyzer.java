@@ -0,0 +1,145 @@
+package study.querydsl.repository.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색조건을 쿼리 전에 살펴보고, 절대 만족할 수 없는 조합이면 DB에 가지 않고 빈 결과로 끝내게 하는 분석기
+ * (ageGoe=50&ageLoe=10 같은 잘못된 요청, 크롤러가 마구 바꿔 보내는 요청 등)
+ *
+ * 만족할 수 없는 조합 (Reason)
+ * - INVERTED_AGE_RANGE: ageGoe > ageLoe
+ * - USERNAME_PREFIX_MISMATCH: username이 usernamePrefix로 시작하지 않음
+ * - USERNAME_CONTAINS_MISMATCH: username이 usernameContains를 포함하지 않음
+ *
+ * 항상 참이라 빼도 되는 조건도 같이 정리해서 돌려준다.
+ * - ageGoe = Integer.MIN_VALUE, ageLoe = Integer.MAX_VALUE
+ * - username으로 이미 정해진 경우의 usernamePrefix/usernameContains
+ * - username 없는 usernameIgnoreCase
+ *
+ * 참고: 대소문자 무시(usernameIgnoreCase) 검색일 때는 회원명 비교 규칙을 적용하지 않는다. (대소문자 변환 시 길이/문자가 바뀌는 경우가 있어서)
+ * 참고: 나이는 음수도 저장될 수 있으므로 (Member.setAge, AgeBand.ETC) ageGoe=0, ageLoe=-1 같은 조건도 그대로 조회한다.
+ */
+@Slf4j
+@Component
+public class MemberSearchConditionAnalyzer {
+
+    public enum Reason {
+        INVERTED_AGE_RANGE,
+        USERNAME_PREFIX_MISMATCH,
+        USERNAME_CONTAINS_MISMATCH
+    }
+
+    private final Map<Reason, AtomicLong> unsatisfiable = new EnumMap<>(Reason.class);
+
+    public MemberSearchConditionAnalyzer() {
+        for (Reason reason : Reason.values()) {
+            unsatisfiable.put(reason, new AtomicLong());
+        }
+    }
+
+    public Analysis analyze(MemberSearchCondition condition) {
+        MemberSearchCondition simplified = simplify(condition);
+        Reason reason = findContradiction(simplified);
+        if (reason != null) {
+            unsatisfiable.get(reason).incrementAndGet();
+            log.debug("unsatisfiable member search condition: {} {}", reason, condition);
+        }
+        return new Analysis(simplified, reason);
+    }
+
+    // 만족할 수 없는 조건이라 쿼리를 생략한 횟수
+    public long getUnsatisfiable(Reason reason) {
+        return unsatisfiable.get(reason).get();
+    }
+
+    // 빠질 조건이 없으면 (대부분의 요청) 복사하지 않고 원래 조건을 그대로 돌려줌
+    private MemberSearchCondition simplify(MemberSearchCondition condition) {
+        Integer ageGoe = condition.getAgeGoe();
+        boolean dropAgeGoe = ageGoe != null && ageGoe == Integer.MIN_VALUE;
+        boolean dropAgeLoe = condition.getAgeLoe() != null && condition.getAgeLoe() == Integer.MAX_VALUE;
+
+        String username = condition.getUsername();
+        boolean ignoreCase = Boolean.TRUE.equals(condition.getUsernameIgnoreCase());
+        boolean dropIgnoreCase = !hasText(username) && condition.getUsernameIgnoreCase() != null;
+        boolean dropPrefix = false;
+        boolean dropContains = false;
+        if (hasText(username) && !ignoreCase) {
+            dropPrefix = hasText(condition.getUsernamePrefix()) && username.startsWith(condition.getUsernamePrefix());
+            dropContains = hasText(condition.getUsernameContains()) && username.contains(condition.getUsernameContains());
+        }
+        if (!dropAgeGoe && !dropAgeLoe && !dropIgnoreCase && !dropPrefix && !dropContains) {
+            return condition;
+        }
+
+        MemberSearchCondition.MemberSearchConditionBuilder builder = condition.toBuilder();
+        if (dropAgeGoe) {
+            builder.ageGoe(null);
+        }
+        if (dropAgeLoe) {
+            builder.ageLoe(null);
+        }
+        if (dropIgnoreCase) {
+            builder.usernameIgnoreCase(null);
+        }
+        if (dropPrefix) {
+            builder.usernamePrefix(null);
+        }
+        if (dropContains) {
+            builder.usernameContains(null);
+        }
+        return builder.build();
+    }
+
+    private Reason findContradiction(MemberSearchCondition condition) {
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+            return Reason.INVERTED_AGE_RANGE;
+        }
+
+        String username = condition.getUsername();
+        if (hasText(username) && !Boolean.TRUE.equals(condition.getUsernameIgnoreCase())) {
+            // simplify()에서 username으로 만족되는 prefix/contains는 이미 빠짐 -> 남아 있으면 모순
+            if (hasText(condition.getUsernamePrefix())) {
+                return Reason.USERNAME_PREFIX_MISMATCH;
+            }
+            if (hasText(condition.getUsernameContains())) {
+                return Reason.USERNAME_CONTAINS_MISMATCH;
+            }
+        }
+        return null;
+    }
+
+    public static final class Analysis {
+
+        private final MemberSearchCondition condition;
+        private final Reason reason;
+
+        private Analysis(MemberSearchCondition condition, Reason reason) {
+            this.condition = condition;
+            this.reason = reason;
+        }
+
+        // 항상 참인 조건을 뺀 검색조건 (원래 조건 객체는 건드리지 않음, 뺄 게 없으면 원래 객체 그대로)
+        public MemberSearchCondition getCondition() {
+            return condition;
+        }
+
+        public boolean isUnsatisfiable() {
+            return reason != null;
+        }
+
+        // 만족할 수 없는 이유 (만족 가능하면 null)
+        public Reason getReason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package study.querydsl.repository.search;
+
+import com.querydsl.core.Query;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition -> where 조건 조합
+ * 여러 Repository에 복사돼 있던 usernameEq/teamNameEq/ageGoe/ageLoe 메서드를 한 곳으로 모음
+ *
+ * - 조건 조각(username = ?, age between ? and ? ...)은 Param으로 미리 만들어 두고 재사용, 조회할 때는 값만 바인딩한다.
+ *   (조건 조각은 불변이라 여러 스레드가 같이 써도 됨)
+ *   참고: 호출마다 Where(조각 배열 + 바인딩 값)와 Analysis 객체는 새로 생기고,
+ *   usernamePrefix/usernameContains 조건은 UsernameIndex가 id 목록으로 predicate를 새로 만든다.
+ *   검색조건 복사는 뺄 조건이 있을 때만 한다.
+ * - 항상 참인 조건은 빼버린다. (빈 문자열, ageGoe <= 0 등 - MemberSearchConditionAnalyzer 참고)
+ * - ageGoe, ageLoe가 같이 있으면 between 하나로 합친다.
+ * - 조건끼리 모순이면(ageGoe > ageLoe, username과 안맞는 usernamePrefix ...) isEmptyResult() == true
+ *   -> 호출하는 쪽에서 쿼리 없이 빈 결과를 돌려주면 된다. (그냥 applyTo 해도 결과는 0건으로 맞음)
+ *
+ * 사용: member leftJoin team 이 있는 쿼리에 applyTo(query)
+ * 참고: 값을 Param으로 바인딩하므로 조건은 반드시 applyTo로 쿼리에 넣어야 함 (where()에 직접 넣으면 ParamNotSetException)
+ */
+@Component
+public class MemberSearchPredicates {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+    static final Param<String> USERNAME_NORMALIZED = new Param<>(String.class, "usernameNormalized");
+    static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    private static final BooleanExpression USERNAME_EQ = member.username.eq(USERNAME);
+    private static final BooleanExpression USERNAME_NORMALIZED_EQ = member.usernameNormalized.eq(USERNAME_NORMALIZED);
+    private static final BooleanExpression TEAM_NAME_EQ = team.name.eq(TEAM_NAME);
+    private static final BooleanExpression AGE_GOE_EXPR = member.age.goe(AGE_GOE);
+    private static final BooleanExpression AGE_LOE_EXPR = member.age.loe(AGE_LOE);
+    private static final BooleanExpression AGE_BETWEEN = member.age.between(AGE_GOE, AGE_LOE);
+
+    // username, teamName, age, usernameIndex
+    private static final int MAX_FRAGMENTS = 4;
+
+    private final UsernameIndex usernameIndex;
+    private final MemberSearchConditionAnalyzer analyzer;
+
+    public MemberSearchPredicates(UsernameIndex usernameIndex, MemberSearchConditionAnalyzer analyzer) {
+        this.usernameIndex = usernameIndex;
+        this.analyzer = analyzer;
+    }
+
+    public Where compose(MemberSearchCondition searchCondition) {
+        MemberSearchConditionAnalyzer.Analysis analysis = analyzer.analyze(searchCondition);
+        if (analysis.isUnsatisfiable()) {
+            return Where.EMPTY_RESULT;
+        }
+        MemberSearchCondition condition = analysis.getCondition();
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+
+        Where where = new Where();
+        if (hasText(condition.getUsername())) {
+            if (Boolean.TRUE.equals(condition.getUsernameIgnoreCase())) {
+                where.add(USERNAME_NORMALIZED_EQ);
+                where.usernameNormalized = Member.normalizeUsername(condition.getUsername());
+            } else {
+                where.add(USERNAME_EQ);
+                where.username = condition.getUsername();
+            }
+        }
+        if (hasText(condition.getTeamName())) {
+            where.add(TEAM_NAME_EQ);
+            where.teamName = condition.getTeamName();
+        }
+        if (ageGoe != null && ageLoe != null) {
+            where.add(AGE_BETWEEN);
+        } else if (ageGoe != null) {
+            where.add(AGE_GOE_EXPR);
+        } else if (ageLoe != null) {
+            where.add(AGE_LOE_EXPR);
+        }
+        where.ageGoe = ageGoe;
+        where.ageLoe = ageLoe;
+
+        BooleanExpression usernameMatch = usernameIndex.predicate(condition.getUsernamePrefix(), condition.getUsernameContains());
+        if (usernameMatch != null) {
+            where.add(usernameMatch);
+        }
+        return where;
+    }
+
+    /**
+     * 조합된 where 조건과 바인딩할 값
+     */
+    public static final class Where {
+
+        static final Where EMPTY_RESULT = new Where(Expressions.booleanTemplate("1 = 0"));
+
+        private final Predicate[] predicates;
+        private int size;
+
+        private String username;
+        private String usernameNormalized;
+        private String teamName;
+        private Integer ageGoe;
+        private Integer ageLoe;
+
+        private Where() {
+            this.predicates = new Predicate[MAX_FRAGMENTS];
+        }
+
+        private Where(Predicate emptyResult) {
+            this.predicates = new Predicate[]{emptyResult};
+            this.size = 1;
+        }
+
+        private void add(Predicate predicate) {
+            predicates[size++] = predicate;
+        }
+
+        // 조건끼리 모순이라 조회할 필요가 없음
+        public boolean isEmptyResult() {
+            return this == EMPTY_RESULT;
+        }
+
+        public <Q extends Query<?>> Q applyTo(Q query) {
+            for (int i = 0; i < size; i++) {
+                query.where(predicates[i]);
+            }
+            bind(query, USERNAME, username);
+            bind(query, USERNAME_NORMALIZED, usernameNormalized);
+            bind(query, TEAM_NAME, teamName);
+            bind(query, AGE_GOE, ageGoe);
+            bind(query, AGE_LOE, ageLoe);
+            return query;
+        }
+
+        private static <T> void bind(Query<?> query, Param<T> param, T value) {
+            if (value != null) {
+                query.set(param, value);
+            }
+        }
+    }
+}
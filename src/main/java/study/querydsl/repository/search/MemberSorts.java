@@ -0,0 +1,45 @@
+package study.querydsl.repository.search;
+
+import com.querydsl.core.types.OrderSpecifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.SortTranslator;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 검색에서 허용하는 정렬키 (모두 인덱스가 있는 경로, SortTranslator 참고)
+ * - id: PK
+ * - username: idx_member_username
+ * - ageBand: idx_member_age_band (age_band, age)
+ *
+ * 팀명(teamName)은 허용하지 않는다. member leftJoin team 결과를 조인한 테이블 컬럼(team.name)으로 정렬하면
+ * idx_team_name을 써도 정렬 순서대로 읽을 수 없고(tiebreaker member.id도 그 인덱스에 없음) 결국 전체 정렬이 된다.
+ * 나이(age)도 age로 시작하는 인덱스가 없어서 허용하지 않는다.
+ *
+ * 설정
+ * querydsl.sort.strict: 기본 true (허용하지 않은 정렬키면 400, false면 그 키만 무시)
+ */
+@Component
+public class MemberSorts {
+
+    private final SortTranslator sortTranslator;
+
+    public MemberSorts(@Value("${querydsl.sort.strict:true}") boolean strict) {
+        this.sortTranslator = SortTranslator.builder(member.id)
+                .key("id", member.id)
+                .key("username", member.username)
+                .key("ageBand", member.ageBand, member.age)
+                .strict(strict)
+                .build();
+    }
+
+    public SortTranslator getSortTranslator() {
+        return sortTranslator;
+    }
+
+    public OrderSpecifier<?>[] orderBy(Sort sort) {
+        return sortTranslator.translate(sort);
+    }
+}
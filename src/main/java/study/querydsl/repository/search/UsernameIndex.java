@@ -0,0 +1,268 @@
+package study.querydsl.repository.search;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.EntityChangeEvent;
+import study.querydsl.repository.support.EntityChangeHandler;
+import study.querydsl.repository.support.EntityChangePublisher;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원명 접두어/부분 검색용 메모리 인덱스
+ *
+ * username like '%x%' 는 인덱스를 못타서 전체 스캔이 된다.
+ * 그래서 회원명 -> id 인덱스를 메모리에 두고, 검색어에 맞는 회원 id를 먼저 구한 다음 DB에는 member_id in (...)로 조회한다.
+ * - 접두어: 회원명 정렬 맵(TreeMap)의 범위 조회
+ * - 부분 검색: 3글자 단위(trigram) 역색인으로 후보 회원명을 좁힌 뒤 실제로 포함하는지 확인 (2글자 이하는 회원명 전체를 훑음)
+ * - 처음 조회할 때 DB에서 한번 전체 로딩, 이후에는 커밋된 엔티티 변경 이벤트로 증분 반영
+ * - 벌크 연산(BULK)은 뭐가 바뀌었는지 모르니 다음 조회 때 다시 전체 로딩
+ *
+ * predicate()는 id 조건과 like 조건을 같이 건다. (팀명/나이 등 다른 조건과는 DB에서 and로 조합)
+ * -> 인덱스가 커밋 직후 잠깐 늦더라도 조건에 안맞는 회원이 섞여 나오지는 않는다.
+ * -> id가 max-ids 보다 많으면 IN 절이 너무 길어지니 like 조건만으로 DB에서 찾는다.
+ * -> 현재 트랜잭션에 아직 커밋 안된 회원 변경이 있으면 인덱스를 안쓰고 like 조건만으로 찾는다.
+ *    (인덱스는 커밋 후에 반영되므로, 쓰면 방금 넣거나 이름을 바꾼 회원이 빠짐)
+ *
+ * -> 인덱스상 맞는 회원이 0명이어도 빈 결과로 끝내지 않고 like 조건만으로 DB에서 확인한다. (아래 커밋 직후 구간 때문)
+ *
+ * 참고: 다른 트랜잭션의 커밋은 커밋 직후 afterCommit에서 인덱스에 반영될 때까지 잠깐 안보일 수 있다. (놓치는 쪽의 오차)
+ * 커밋한 스레드에서 바로 반영하므로 이 구간은 짧지만 0은 아니다.
+ * 인덱스상 0건이면 like로 넘어가니 그 회원들도 나오지만, 인덱스에 다른 회원이 있으면 member_id in (...) 조건에 걸려 이번 조회에서는 빠진다.
+ * 정확히 맞아야 하는 곳에서는 인덱스를 끄자.
+ *
+ * 설정
+ * querydsl.username-index.enabled: 기본 true (끄면 항상 like 조건으로 DB 검색)
+ * querydsl.username-index.max-ids: 기본 1000
+ */
+@Slf4j
+@Component
+public class UsernameIndex implements EntityChangeHandler {
+
+    private static final int GRAM = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityChangePublisher entityChangePublisher;
+    private final boolean enabled;
+    private final int maxIds;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Set<Long>> idsByUsername = new TreeMap<>();
+    private final Map<Long, String> usernameById = new HashMap<>();
+    private final Map<String, Set<String>> usernamesByGram = new HashMap<>();
+
+    private volatile boolean valid;
+    private final AtomicLong changes = new AtomicLong();
+
+    public UsernameIndex(JdbcTemplate jdbcTemplate,
+                         EntityChangePublisher entityChangePublisher,
+                         @Value("${querydsl.username-index.enabled:true}") boolean enabled,
+                         @Value("${querydsl.username-index.max-ids:1000}") int maxIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityChangePublisher = entityChangePublisher;
+        this.enabled = enabled;
+        this.maxIds = maxIds;
+    }
+
+    /**
+     * 회원명 접두어/부분 검색 조건 (둘 다 없으면 null -> where 절에서 무시됨)
+     */
+    public BooleanExpression predicate(String prefix, String contains) {
+        BooleanExpression like = likePredicate(prefix, contains);
+        if (like == null) {
+            return null;
+        }
+        if (enabled && entityChangePublisher.hasUncommittedChanges(Member.class)) {
+            return like;
+        }
+        Optional<Set<Long>> ids = findIds(prefix, contains);
+        if (!ids.isPresent() || ids.get().isEmpty() || ids.get().size() > maxIds) {
+            return like;
+        }
+        return member.id.in(ids.get()).and(like);
+    }
+
+    /**
+     * 조건에 맞는 회원 id (인덱스를 안쓰는 설정이면 Optional.empty())
+     * 접두어와 부분 검색이 같이 들어오면 둘 다 만족하는 id (교집합)
+     */
+    public Optional<Set<Long>> findIds(String prefix, String contains) {
+        if (!enabled || (!hasText(prefix) && !hasText(contains))) {
+            return Optional.empty();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Set<Long> result = new HashSet<>();
+            for (Map.Entry<String, Set<Long>> entry : candidates(prefix, contains).entrySet()) {
+                String username = entry.getKey();
+                if (hasText(contains) && !username.contains(contains)) {
+                    continue;
+                }
+                result.addAll(entry.getValue());
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void afterCommit(EntityChangeEvent event) {
+        if (!enabled || !event.isFor(Member.class)) {
+            return;
+        }
+        // 전체 로딩 중에 들어온 변경은 SELECT가 못봤을 수 있으니 세어두고, 로딩이 끝날 때 확인 (reload 참고)
+        changes.incrementAndGet();
+        if (!valid) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!valid) {
+                return;
+            }
+            switch (event.getType()) {
+                case INSERT:
+                case UPDATE:
+                    remove((Long) event.getId());
+                    add((Long) event.getId(), (String) event.getNewValue("username"));
+                    break;
+                case DELETE:
+                    remove((Long) event.getId());
+                    break;
+                case BULK:
+                    valid = false;
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    // 접두어가 있으면 범위 조회, 부분 검색만 있으면 trigram 교집합, 짧으면 전체
+    private SortedMap<String, Set<Long>> candidates(String prefix, String contains) {
+        if (hasText(prefix)) {
+            return idsByUsername.subMap(prefix, prefix + Character.MAX_VALUE);
+        }
+        if (contains.length() < GRAM) {
+            return idsByUsername;
+        }
+        Set<String> usernames = null;
+        for (String gram : grams(contains)) {
+            Set<String> posting = usernamesByGram.getOrDefault(gram, Collections.emptySet());
+            if (usernames == null) {
+                usernames = new HashSet<>(posting);
+            } else {
+                usernames.retainAll(posting);
+            }
+            if (usernames.isEmpty()) {
+                break;
+            }
+        }
+        TreeMap<String, Set<Long>> result = new TreeMap<>();
+        for (String username : usernames) {
+            result.put(username, idsByUsername.get(username));
+        }
+        return result;
+    }
+
+    private void ensureLoaded() {
+        if (valid) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!valid) {
+                reload();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 로딩하는 동안 커밋된 회원 변경이 있으면 valid를 false로 남겨서 다음 조회 때 다시 로딩 (이번 조회는 SELECT 시점 기준)
+    private void reload() {
+        long start = System.currentTimeMillis();
+        long changesBefore = changes.get();
+        idsByUsername.clear();
+        usernameById.clear();
+        usernamesByGram.clear();
+        jdbcTemplate.query("select member_id, username from member", rs -> {
+            add(rs.getLong(1), rs.getString(2));
+        });
+        valid = changes.get() == changesBefore;
+        log.info("username index loaded. members={}, usernames={}, {}ms, changedDuringLoad={}",
+                usernameById.size(), idsByUsername.size(), System.currentTimeMillis() - start, !valid);
+    }
+
+    private void add(Long id, String username) {
+        if (username == null) {
+            return;
+        }
+        usernameById.put(id, username);
+        Set<Long> ids = idsByUsername.computeIfAbsent(username, name -> {
+            for (String gram : grams(name)) {
+                usernamesByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(name);
+            }
+            return new HashSet<>();
+        });
+        ids.add(id);
+    }
+
+    private void remove(Long id) {
+        String username = usernameById.remove(id);
+        if (username == null) {
+            return;
+        }
+        Set<Long> ids = idsByUsername.get(username);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            idsByUsername.remove(username);
+            for (String gram : grams(username)) {
+                Set<String> posting = usernamesByGram.get(gram);
+                posting.remove(username);
+                if (posting.isEmpty()) {
+                    usernamesByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static BooleanExpression likePredicate(String prefix, String contains) {
+        BooleanExpression startsWith = hasText(prefix) ? member.username.startsWith(prefix) : null;
+        BooleanExpression containsWith = hasText(contains) ? member.username.contains(contains) : null;
+        if (startsWith == null) {
+            return containsWith;
+        }
+        return containsWith == null ? startsWith : startsWith.and(containsWith);
+    }
+}
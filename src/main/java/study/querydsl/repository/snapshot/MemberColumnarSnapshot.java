@@ -0,0 +1,579 @@
+package study.querydsl.repository.snapshot;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityChangeEvent;
+import study.querydsl.repository.support.EntityChangeHandler;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * 분석용 쿼리를 위한 회원 컬럼형 스냅샷 (메모리)
+ *
+ * QuerydslBasicTest의 서브쿼리(최대/평균 나이), CASE 나이 구간 집계 같은 쿼리는 DB에서 상관 서브쿼리로 돌아간다.
+ * 회원 데이터를 컬럼별 기본형 배열로 메모리에 들고 있으면 DB 왕복 없이 마이크로초 단위로 답할 수 있다.
+ * - int[] ages, long[] teamIds, 회원명은 사전 인코딩 (int 코드 + 코드 -> 문자열 사전)
+ * - 처음 조회할 때 DB에서 한번 전체 로딩, 이후에는 커밋된 엔티티 변경 이벤트로 증분 반영
+ * - 벌크 연산(BULK)은 뭐가 바뀌었는지 모르니 다음 조회 때 다시 전체 로딩
+ * - 조건은 Querydsl Predicate 그대로 받아서 평가 (member.age, member.username, member.id, member.team.id 만 지원)
+ *
+ * 사용: MemberTestRepository.findOldest (최대 나이를 서브쿼리 대신 스냅샷에서 구함)
+ * 설정: querydsl.snapshot.enabled (기본 false)
+ * 참고: 커밋 후에 반영되므로 조회 결과는 커밋된 데이터 기준이다. (현재 트랜잭션에서 바꾼 내용은 안보임)
+ */
+@Slf4j
+@Component
+public class MemberColumnarSnapshot implements EntityChangeHandler {
+
+    private static final long NO_TEAM = Long.MIN_VALUE;
+    private static final int NO_USERNAME = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 컬럼 (row 번호로 접근)
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private long[] teamIds = new long[INITIAL_CAPACITY];
+    private int[] usernameCodes = new int[INITIAL_CAPACITY];
+    private final BitSet live = new BitSet();
+    private int size;
+    private int deleted;
+
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> usernames = new ArrayList<>();
+
+    private volatile boolean valid;
+    private final AtomicLong changes = new AtomicLong();
+
+    public MemberColumnarSnapshot(JdbcTemplate jdbcTemplate, @Value("${querydsl.snapshot.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ===== 조회 =====
+
+    public long count(Predicate where) {
+        return read(where, matcher -> {
+            long count = 0;
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (matcher.matches(row)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    public OptionalInt maxAge(Predicate where) {
+        return read(where, matcher -> {
+            boolean found = false;
+            int max = Integer.MIN_VALUE;
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (matcher.matches(row)) {
+                    found = true;
+                    max = Math.max(max, ages[row]);
+                }
+            }
+            return found ? OptionalInt.of(max) : OptionalInt.empty();
+        });
+    }
+
+    public OptionalInt minAge(Predicate where) {
+        return read(where, matcher -> {
+            boolean found = false;
+            int min = Integer.MAX_VALUE;
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (matcher.matches(row)) {
+                    found = true;
+                    min = Math.min(min, ages[row]);
+                }
+            }
+            return found ? OptionalInt.of(min) : OptionalInt.empty();
+        });
+    }
+
+    public OptionalDouble avgAge(Predicate where) {
+        return read(where, matcher -> {
+            long count = 0;
+            long sum = 0;
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (matcher.matches(row)) {
+                    count++;
+                    sum += ages[row];
+                }
+            }
+            return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum / count);
+        });
+    }
+
+    // 조건에 맞는 회원 id (오름차순)
+    public long[] findIds(Predicate where) {
+        long[] result = read(where, matcher -> {
+            long[] matched = new long[16];
+            int count = 0;
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (matcher.matches(row)) {
+                    if (count == matched.length) {
+                        matched = Arrays.copyOf(matched, count * 2);
+                    }
+                    matched[count++] = ids[row];
+                }
+            }
+            return Arrays.copyOf(matched, count);
+        });
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 나이 구간별 회원수 (CASE 나이 구간 집계)
+     * 사용 예시) countByAge(null, age -> age <= 20 ? "0~20살" : age <= 30 ? "21~30살" : "기타")
+     */
+    public <K> Map<K, Long> countByAge(Predicate where, IntFunction<K> bucket) {
+        return read(where, matcher -> {
+            Map<K, Long> result = new LinkedHashMap<>();
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (matcher.matches(row)) {
+                    result.merge(bucket.apply(ages[row]), 1L, Long::sum);
+                }
+            }
+            return result;
+        });
+    }
+
+    private <R> R read(Predicate where, Function<RowMatcher, R> scan) {
+        Assert.state(enabled, "Member snapshot is disabled. (querydsl.snapshot.enabled)");
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return scan.apply(where == null ? RowMatcher.ALL : compile(where));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== 변경 반영 =====
+
+    @Override
+    public void afterCommit(EntityChangeEvent event) {
+        if (!enabled || !event.isFor(Member.class)) {
+            return;
+        }
+        // 전체 로딩 중에 들어온 변경은 SELECT가 못봤을 수 있으니 세어두고, 로딩이 끝날 때 확인 (reload 참고)
+        changes.incrementAndGet();
+        if (!valid) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!valid) {
+                return;
+            }
+            switch (event.getType()) {
+                case INSERT:
+                case UPDATE:
+                    Team team = (Team) event.getNewValue("team");
+                    upsert((Long) event.getId(), (String) event.getNewValue("username"),
+                            (Integer) event.getNewValue("age"), team != null ? team.getId() : null);
+                    break;
+                case DELETE:
+                    remove((Long) event.getId());
+                    break;
+                case BULK:
+                    valid = false;
+                    break;
+            }
+            // 삭제된 row가 절반이 넘으면 다음 조회때 새로 로딩하면서 정리
+            if (deleted > INITIAL_CAPACITY && deleted > size / 2) {
+                valid = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    private void ensureLoaded() {
+        if (valid) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!valid) {
+                reload();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 로딩하는 동안 커밋된 회원 변경이 있으면 valid를 false로 남겨서 다음 조회 때 다시 로딩한다.
+     * (SELECT 이후에 커밋된 변경을 afterCommit에서 버리면 다음 BULK 전까지 계속 옛날 데이터로 남음)
+     * 이번 조회는 SELECT 시점 기준의 데이터로 답한다.
+     */
+    private void reload() {
+        long start = System.currentTimeMillis();
+        long changesBefore = changes.get();
+        clear();
+        jdbcTemplate.query("select member_id, username, age, team_id from member", rs -> {
+            long teamId = rs.getLong(4);
+            upsert(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.wasNull() ? null : teamId);
+        });
+        valid = changes.get() == changesBefore;
+        log.info("member snapshot loaded. rows={}, usernames={}, {}ms, changedDuringLoad={}",
+                size, usernames.size(), System.currentTimeMillis() - start, !valid);
+    }
+
+    private void clear() {
+        ids = new long[INITIAL_CAPACITY];
+        ages = new int[INITIAL_CAPACITY];
+        teamIds = new long[INITIAL_CAPACITY];
+        usernameCodes = new int[INITIAL_CAPACITY];
+        live.clear();
+        size = 0;
+        deleted = 0;
+        rowById.clear();
+        dictionary.clear();
+        usernames.clear();
+    }
+
+    private void upsert(long id, String username, int age, Long teamId) {
+        Integer row = rowById.get(id);
+        if (row == null) {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            rowById.put(id, row);
+            ids[row] = id;
+            live.set(row);
+        }
+        ages[row] = age;
+        teamIds[row] = teamId != null ? teamId : NO_TEAM;
+        usernameCodes[row] = encode(username);
+    }
+
+    private void remove(long id) {
+        Integer row = rowById.remove(id);
+        if (row != null) {
+            live.clear(row);
+            deleted++;
+        }
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teamIds = Arrays.copyOf(teamIds, capacity);
+        usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+    }
+
+    private int encode(String username) {
+        if (username == null) {
+            return NO_USERNAME;
+        }
+        return dictionary.computeIfAbsent(username, name -> {
+            usernames.add(name);
+            return usernames.size() - 1;
+        });
+    }
+
+    // ===== Querydsl Predicate -> RowMatcher =====
+
+    private RowMatcher compile(Expression<?> expression) {
+        if (!(expression instanceof Operation)) {
+            throw unsupported(expression);
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        Operator operator = operation.getOperator();
+        List<Expression<?>> args = operation.getArgs();
+
+        if (operator == Ops.AND) {
+            return compile(args.get(0)).and(compile(args.get(1)));
+        }
+        if (operator == Ops.OR) {
+            return compile(args.get(0)).or(compile(args.get(1)));
+        }
+        if (operator == Ops.NOT) {
+            return compile(args.get(0)).negate();
+        }
+
+        Column column = column(args.get(0), expression);
+        if (operator == Ops.IS_NULL) {
+            return row -> column.isNull(this, row);
+        }
+        if (operator == Ops.IS_NOT_NULL) {
+            return row -> !column.isNull(this, row);
+        }
+        if (column == Column.USERNAME) {
+            return compileUsername(operator, args, expression);
+        }
+
+        // id, team.id는 long이라 double로 비교하면 2^53 넘는 값이 뭉개짐 -> 컬럼 값은 long 그대로 비교
+        // 상수가 소수(평균 나이 등)면 정수 컬럼 기준으로 올림/내림해서 같은 의미의 정수 비교로 바꾼다.
+        if (operator == Ops.BETWEEN) {
+            long from = ceil(number(args.get(1), expression));
+            long to = floor(number(args.get(2), expression));
+            return row -> !column.isNull(this, row) && column.value(this, row) >= from && column.value(this, row) <= to;
+        }
+        if (operator == Ops.IN || operator == Ops.NOT_IN) {
+            Set<Long> values = new HashSet<>();
+            for (Object value : collection(args.get(1), expression)) {
+                Long exact = exact(number(value, expression));
+                if (exact != null) { // 소수는 정수 컬럼과 같을 수 없음
+                    values.add(exact);
+                }
+            }
+            RowMatcher in = row -> !column.isNull(this, row) && values.contains(column.value(this, row));
+            return operator == Ops.IN ? in : row -> !column.isNull(this, row) && !in.matches(row);
+        }
+
+        BigDecimal value = number(args.get(1), expression);
+        if (operator == Ops.EQ || operator == Ops.NE) {
+            Long exact = exact(value);
+            if (exact == null) {
+                return operator == Ops.EQ ? row -> false : row -> !column.isNull(this, row);
+            }
+            long target = exact;
+            return operator == Ops.EQ
+                    ? row -> !column.isNull(this, row) && column.value(this, row) == target
+                    : row -> !column.isNull(this, row) && column.value(this, row) != target;
+        }
+        if (operator == Ops.GT) {
+            long bound = floor(value);
+            return row -> !column.isNull(this, row) && column.value(this, row) > bound;
+        }
+        if (operator == Ops.GOE) {
+            long bound = ceil(value);
+            return row -> !column.isNull(this, row) && column.value(this, row) >= bound;
+        }
+        if (operator == Ops.LT) {
+            long bound = ceil(value);
+            return row -> !column.isNull(this, row) && column.value(this, row) < bound;
+        }
+        if (operator == Ops.LOE) {
+            long bound = floor(value);
+            return row -> !column.isNull(this, row) && column.value(this, row) <= bound;
+        }
+        throw unsupported(expression);
+    }
+
+    private RowMatcher compileUsername(Operator operator, List<Expression<?>> args, Expression<?> expression) {
+        if (operator == Ops.EQ || operator == Ops.NE) {
+            Integer code = dictionary.get((String) constant(args.get(1), expression));
+            if (code == null) {
+                // 사전에 없는 이름이면 비교할 필요도 없음
+                return operator == Ops.EQ ? row -> false : row -> usernameCodes[row] != NO_USERNAME;
+            }
+            int target = code;
+            return operator == Ops.EQ
+                    ? row -> usernameCodes[row] == target
+                    : row -> usernameCodes[row] != NO_USERNAME && usernameCodes[row] != target;
+        }
+        if (operator == Ops.IN) {
+            Set<Integer> codes = new HashSet<>();
+            for (Object value : collection(args.get(1), expression)) {
+                Integer code = dictionary.get((String) value);
+                if (code != null) {
+                    codes.add(code);
+                }
+            }
+            return row -> codes.contains(usernameCodes[row]);
+        }
+        if (operator == Ops.STARTS_WITH) {
+            // 사전(서로 다른 이름 수)만 한번 훑어서 맞는 코드를 구해둠
+            String prefix = (String) constant(args.get(1), expression);
+            BitSet codes = new BitSet();
+            for (int code = 0; code < usernames.size(); code++) {
+                if (usernames.get(code).startsWith(prefix)) {
+                    codes.set(code);
+                }
+            }
+            return row -> usernameCodes[row] != NO_USERNAME && codes.get(usernameCodes[row]);
+        }
+        throw unsupported(expression);
+    }
+
+    private Column column(Expression<?> expression, Expression<?> whole) {
+        if (expression instanceof Path && ((Path<?>) expression).getRoot().getType() == Member.class) {
+            String property = propertyPath((Path<?>) expression);
+            switch (property) {
+                case "id":
+                    return Column.ID;
+                case "age":
+                    return Column.AGE;
+                case "team.id":
+                    return Column.TEAM_ID;
+                case "username":
+                    return Column.USERNAME;
+            }
+        }
+        throw unsupported(whole);
+    }
+
+    private String propertyPath(Path<?> path) {
+        PathMetadata metadata = path.getMetadata();
+        if (metadata.isRoot()) {
+            return "";
+        }
+        String parent = propertyPath(metadata.getParent());
+        return parent.isEmpty() ? metadata.getName() : parent + "." + metadata.getName();
+    }
+
+    private Object constant(Expression<?> expression, Expression<?> whole) {
+        if (expression instanceof Constant) {
+            return ((Constant<?>) expression).getConstant();
+        }
+        throw unsupported(whole);
+    }
+
+    private BigDecimal number(Expression<?> expression, Expression<?> whole) {
+        return number(constant(expression, whole), whole);
+    }
+
+    // Long은 그대로, Double/BigDecimal 등은 10진수로 바꿔서 비교 (doubleValue()로 바꾸면 큰 long 값이 뭉개짐)
+    private BigDecimal number(Object value, Expression<?> whole) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString());
+            } catch (NumberFormatException e) { // NaN, Infinity
+                throw unsupported(whole);
+            }
+        }
+        throw unsupported(whole);
+    }
+
+    // 정수로 딱 떨어지고 long 범위 안이면 그 값, 아니면 null (어떤 컬럼 값과도 같을 수 없음)
+    private static Long exact(BigDecimal value) {
+        if (value.signum() != 0 && value.stripTrailingZeros().scale() > 0) {
+            return null;
+        }
+        if (value.compareTo(LONG_MAX) > 0 || value.compareTo(LONG_MIN) < 0) {
+            return null;
+        }
+        return value.longValueExact();
+    }
+
+    private static long floor(BigDecimal value) {
+        return clamp(value.setScale(0, RoundingMode.FLOOR));
+    }
+
+    private static long ceil(BigDecimal value) {
+        return clamp(value.setScale(0, RoundingMode.CEILING));
+    }
+
+    // long 범위를 넘는 상수는 범위 끝 값으로 (컬럼 값은 long이라 비교 결과가 같음, 범위 끝 값과 같은지 비교하는 경우만 예외)
+    private static long clamp(BigDecimal value) {
+        if (value.compareTo(LONG_MAX) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (value.compareTo(LONG_MIN) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return value.longValueExact();
+    }
+
+    private Collection<?> collection(Expression<?> expression, Expression<?> whole) {
+        Object value = constant(expression, whole);
+        if (value instanceof Collection) {
+            return (Collection<?>) value;
+        }
+        throw unsupported(whole);
+    }
+
+    private IllegalArgumentException unsupported(Expression<?> expression) {
+        return new IllegalArgumentException("Unsupported predicate for member snapshot: " + expression);
+    }
+
+    // 정수 컬럼은 전부 long으로 비교 (int age도 long으로 넓히면 값이 그대로)
+    private enum Column {
+        ID {
+            long value(MemberColumnarSnapshot s, int row) {
+                return s.ids[row];
+            }
+        },
+        AGE {
+            long value(MemberColumnarSnapshot s, int row) {
+                return s.ages[row];
+            }
+        },
+        TEAM_ID {
+            long value(MemberColumnarSnapshot s, int row) {
+                return s.teamIds[row];
+            }
+
+            @Override
+            boolean isNull(MemberColumnarSnapshot s, int row) {
+                return s.teamIds[row] == NO_TEAM;
+            }
+        },
+        USERNAME {
+            long value(MemberColumnarSnapshot s, int row) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            boolean isNull(MemberColumnarSnapshot s, int row) {
+                return s.usernameCodes[row] == NO_USERNAME;
+            }
+        };
+
+        abstract long value(MemberColumnarSnapshot s, int row);
+
+        boolean isNull(MemberColumnarSnapshot s, int row) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.repository.snapshot;
+
+// 스냅샷의 row 번호를 받아서 조건에 맞는지 판단
+@FunctionalInterface
+interface RowMatcher {
+
+    RowMatcher ALL = row -> true;
+
+    boolean matches(int row);
+
+    default RowMatcher and(RowMatcher other) {
+        return row -> matches(row) && other.matches(row);
+    }
+
+    default RowMatcher or(RowMatcher other) {
+        return row -> matches(row) || other.matches(row);
+    }
+
+    default RowMatcher negate() {
+        return row -> !matches(row);
+    }
+}
@@ -0,0 +1,168 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.util.Assert;
+
+import javax.persistence.AttributeNode;
+import javax.persistence.Cache;
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Subgraph;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * id 여러 개를 한번에 조회 (em.find를 id마다 부르면 id 수만큼 DB를 왕복함)
+ *
+ * 1. 영속성 컨텍스트에 이미 있는 엔티티는 그대로 사용
+ * 2. 2차 캐시에 있으면 em.find로 캐시에서 꺼냄 (SQL 없음)
+ *    - 1, 2에서 찾은 엔티티는 fetch graph 힌트를 안탔으니 FetchPlan의 연관관계를 Hibernate.initialize로 따로 초기화한다.
+ *      (이미 초기화된 연관관계는 SQL 없음, 안된 것만 지연 로딩 한번씩)
+ * 3. 나머지는 id in (...) 쿼리로 청크 단위 조회
+ *    - 청크 크기를 PADDED_SIZES 중 하나로 맞추고, 남는 자리는 마지막 id로 채운다.
+ *      -> id 개수가 매번 달라도 SQL 모양이 몇 가지뿐이라 하이버네이트 쿼리 플랜 캐시, DB 실행계획 캐시를 그대로 탄다.
+ *
+ * 결과는 입력한 id 순서대로 (없는 id는 빠지고, 중복된 id는 같은 엔티티가 여러 번 들어감)
+ * 참고: 삭제 예정(remove 후 flush 전)인 엔티티는 없는 것으로 본다.
+ */
+public class BatchIdLoader {
+
+    static final int[] PADDED_SIZES = {1, 2, 4, 8, 16, 32, 64, 128};
+    static final int MAX_CHUNK_SIZE = PADDED_SIZES[PADDED_SIZES.length - 1];
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public BatchIdLoader(EntityManager em) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public <T, ID> List<T> load(EntityPath<T> entityPath, SimpleExpression<ID> idPath, List<ID> ids, FetchPlan fetchPlan) {
+        Assert.notNull(ids, "ids must not be null!");
+        Assert.noNullElements(ids, "ids must not contain null!");
+        Assert.notNull(fetchPlan, "FetchPlan must not be null!");
+        Class<? extends T> entityType = entityPath.getType();
+
+        Map<Object, T> found = new HashMap<>();
+        List<ID> missing = new ArrayList<>();
+        Set<ID> distinct = new LinkedHashSet<>(ids);
+        findLoaded(entityType, distinct, found, missing);
+
+        EntityGraph<?> graph = fetchPlan.toEntityGraph(em, entityType);
+        if (!fetchPlan.isLean()) {
+            SessionImplementor session = em.unwrap(SessionImplementor.class);
+            for (T entity : found.values()) {
+                initialize(session, entity, graph.getAttributeNodes());
+            }
+        }
+
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (int from = 0; from < missing.size(); from += MAX_CHUNK_SIZE) {
+            List<ID> chunk = pad(missing.subList(from, Math.min(from + MAX_CHUNK_SIZE, missing.size())));
+            List<T> entities = queryFactory
+                    .selectFrom(entityPath)
+                    .where(idPath.in(chunk))
+                    .setHint(FetchPlan.FETCH_GRAPH_HINT, graph)
+                    .fetch();
+            for (T entity : entities) {
+                found.put(util.getIdentifier(entity), entity);
+            }
+        }
+
+        List<T> result = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T entity = found.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    private <T, ID> void findLoaded(Class<? extends T> entityType, Set<ID> ids, Map<Object, T> found, List<ID> missing) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityType);
+        Cache cache = em.getEntityManagerFactory().getCache();
+
+        for (ID id : ids) {
+            EntityKey key = session.generateEntityKey((Serializable) id, persister);
+            Object managed = persistenceContext.getEntity(key);
+            if (managed != null) {
+                EntityEntry entry = persistenceContext.getEntry(managed);
+                if (entry != null && entry.getStatus() != Status.DELETED && entry.getStatus() != Status.GONE) {
+                    found.put(id, entityType.cast(managed));
+                }
+                continue;
+            }
+            if (cache.contains(entityType, id)) {
+                T cached = em.find(entityType, id);
+                if (cached != null) {
+                    found.put(id, cached);
+                    continue;
+                }
+            }
+            missing.add(id);
+        }
+    }
+
+    // 그래프의 속성을 따라가면서 프록시/컬렉션 초기화 (컬렉션이면 원소마다 하위 그래프 적용)
+    private void initialize(SessionImplementor session, Object entity, List<AttributeNode<?>> nodes) {
+        Object target = Hibernate.unproxy(entity);
+        if (target == null) {
+            return;
+        }
+        EntityPersister persister = session.getEntityPersister(null, target);
+        for (AttributeNode<?> node : nodes) {
+            Object value = persister.getPropertyValue(target, node.getAttributeName());
+            Hibernate.initialize(value);
+            for (Subgraph<?> subgraph : node.getSubgraphs().values()) {
+                if (value instanceof Collection) {
+                    for (Object element : (Collection<?>) value) {
+                        initialize(session, element, subgraph.getAttributeNodes());
+                    }
+                } else {
+                    initialize(session, value, subgraph.getAttributeNodes());
+                }
+            }
+        }
+    }
+
+    // 청크 크기를 PADDED_SIZES 중 가장 가까운 큰 값으로 맞춤 (남는 자리는 마지막 id 반복)
+    static <ID> List<ID> pad(List<ID> chunk) {
+        int size = paddedSize(chunk.size());
+        List<ID> padded = new ArrayList<>(size);
+        padded.addAll(chunk);
+        ID last = chunk.get(chunk.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    static int paddedSize(int size) {
+        for (int padded : PADDED_SIZES) {
+            if (padded >= size) {
+                return padded;
+            }
+        }
+        throw new IllegalArgumentException("chunk too large: " + size);
+    }
+}
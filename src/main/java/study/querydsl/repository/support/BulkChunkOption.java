@@ -0,0 +1,46 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+/**
+ * 벌크 연산을 id 범위 청크로 나눠서 실행할 때 사용하는 옵션
+ * - chunkSize: 한 청크가 담당하는 id 범위 크기 (청크마다 커밋)
+ * - throttleMillis: 청크 사이에 쉬는 시간 (다른 트랜잭션이 락을 잡을 틈을 줌)
+ * - listener: 청크가 커밋될 때마다 진행 상황을 받는 콜백
+ */
+@Getter
+public class BulkChunkOption {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final int chunkSize;
+    private final long throttleMillis;
+    private final BulkProgressListener listener;
+
+    private BulkChunkOption(int chunkSize, long throttleMillis, BulkProgressListener listener) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be positive!");
+        Assert.isTrue(throttleMillis >= 0, "throttleMillis must not be negative!");
+        Assert.notNull(listener, "listener must not be null!");
+        this.chunkSize = chunkSize;
+        this.throttleMillis = throttleMillis;
+        this.listener = listener;
+    }
+
+    public static BulkChunkOption defaults() {
+        return of(DEFAULT_CHUNK_SIZE);
+    }
+
+    public static BulkChunkOption of(int chunkSize) {
+        return new BulkChunkOption(chunkSize, 0, progress -> {
+        });
+    }
+
+    public BulkChunkOption throttle(long throttleMillis) {
+        return new BulkChunkOption(chunkSize, throttleMillis, listener);
+    }
+
+    public BulkChunkOption onProgress(BulkProgressListener listener) {
+        return new BulkChunkOption(chunkSize, throttleMillis, listener);
+    }
+}
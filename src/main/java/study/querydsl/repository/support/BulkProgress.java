@@ -0,0 +1,37 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 청크 단위 벌크 연산의 진행 상황
+ * - fromId ~ toId: 방금 커밋된 청크의 id 범위
+ * - minId ~ maxId: 벌크 연산 전체 대상의 id 범위
+ */
+@Getter
+@ToString
+public class BulkProgress {
+
+    private final int chunkIndex;
+    private final long fromId;
+    private final long toId;
+    private final long minId;
+    private final long maxId;
+    private final long affectedRows;
+    private final long totalAffectedRows;
+
+    public BulkProgress(int chunkIndex, long fromId, long toId, long minId, long maxId, long affectedRows, long totalAffectedRows) {
+        this.chunkIndex = chunkIndex;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.affectedRows = affectedRows;
+        this.totalAffectedRows = totalAffectedRows;
+    }
+
+    // 처리한 id 범위 기준 진행률 (0.0 ~ 1.0)
+    public double getProgressRate() {
+        return (double) (toId - minId + 1) / (maxId - minId + 1);
+    }
+}
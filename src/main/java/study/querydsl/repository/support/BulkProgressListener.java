@@ -0,0 +1,10 @@
+package study.querydsl.repository.support;
+
+/**
+ * 청크 단위 벌크 연산에서 청크 하나가 커밋될 때마다 호출되는 콜백
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    void onChunk(BulkProgress progress);
+}
@@ -0,0 +1,53 @@
+package study.querydsl.repository.support;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 엔티티 타입별 변경 카운터
+ * 엔티티가 바뀔 때마다 (벌크 연산 포함) 버전이 올라가므로, 캐시한 결과가 아직 유효한지 싸게 확인할 수 있다.
+ *
+ * 참고: 변경 시점(flush)과 커밋 이후에 두번 올린다.
+ * - flush 때 올려야 같은 트랜잭션 안에서 옛날 캐시를 안보고
+ * - 커밋 후에 올려야 커밋 전에 다른 스레드가 읽어서 캐시한 옛날 결과를 버릴 수 있음
+ * 참고: JVM 메모리 카운터라 서버가 여러대면 서버마다 따로 관리된다. (재시작하면 0부터 다시 시작)
+ */
+@Component
+public class ChangeVersions implements EntityChangeHandler {
+
+    private final Map<Class<?>, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    @Override
+    public void onChange(EntityChangeEvent event) {
+        bump(event.getEntityType());
+    }
+
+    @Override
+    public void afterCommit(EntityChangeEvent event) {
+        bump(event.getEntityType());
+    }
+
+    public void bump(Class<?> entityType) {
+        counter(entityType).incrementAndGet();
+    }
+
+    public long version(Class<?>... entityTypes) {
+        long version = 0;
+        for (Class<?> entityType : entityTypes) {
+            version += counter(entityType).get();
+        }
+        return version;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    private AtomicLong counter(Class<?> entityType) {
+        return versions.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+
+/**
+ * 엔티티 변경 이벤트
+ * - INSERT, UPDATE, DELETE: 영속성 컨텍스트를 거친 변경 (하이버네이트 이벤트에서 만들어짐)
+ * - BULK: 벌크 연산, JDBC 처럼 어떤 row가 바뀌었는지 모르는 변경 -> 받는 쪽에서 entityType 전체를 다시 맞춰야함
+ */
+@Getter
+@ToString(of = {"type", "entityType", "id"})
+public class EntityChangeEvent {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE, BULK
+    }
+
+    private final Type type;
+    private final Class<?> entityType;
+    private final Object entity;
+    private final Object id;
+    private final String[] propertyNames;
+    private final Object[] oldState;
+    private final Object[] state;
+
+    public EntityChangeEvent(Type type, Class<?> entityType, Object entity, Object id,
+                             String[] propertyNames, Object[] oldState, Object[] state) {
+        this.type = type;
+        this.entityType = entityType;
+        this.entity = entity;
+        this.id = id;
+        this.propertyNames = propertyNames;
+        this.oldState = oldState;
+        this.state = state;
+    }
+
+    public static EntityChangeEvent bulk(Class<?> entityType) {
+        return new EntityChangeEvent(Type.BULK, entityType, null, null, null, null, null);
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK;
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+
+    // UPDATE 인데 하이버네이트가 이전 상태를 모르는 경우(detached merge 등)가 있어서 확인용으로 둠
+    public boolean hasOldState() {
+        return oldState != null;
+    }
+
+    public Object getOldValue(String propertyName) {
+        return valueOf(oldState, propertyName);
+    }
+
+    public Object getNewValue(String propertyName) {
+        return valueOf(state, propertyName);
+    }
+
+    private Object valueOf(Object[] values, String propertyName) {
+        if (values == null || propertyNames == null) {
+            return null;
+        }
+        int index = Arrays.asList(propertyNames).indexOf(propertyName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown property: " + entityType.getSimpleName() + "." + propertyName);
+        }
+        return values[index];
+    }
+}
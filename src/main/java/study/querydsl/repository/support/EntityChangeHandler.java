@@ -0,0 +1,15 @@
+package study.querydsl.repository.support;
+
+/**
+ * 엔티티 변경 이벤트를 받는 빈은 이 인터페이스를 구현하면 EntityChangePublisher가 알아서 호출해준다.
+ * - onChange: 변경이 일어난 트랜잭션 안에서 바로 호출 (flush 중) -> 같은 트랜잭션으로 DB에 같이 반영해야 하는 경우
+ * - afterCommit: 커밋이 성공한 뒤에 호출 (트랜잭션이 없으면 바로) -> 메모리 캐시, 인덱스처럼 커밋된 데이터만 봐야하는 경우
+ */
+public interface EntityChangeHandler {
+
+    default void onChange(EntityChangeEvent event) {
+    }
+
+    default void afterCommit(EntityChangeEvent event) {
+    }
+}
@@ -0,0 +1,158 @@
+package study.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 하이버네이트 insert/update/delete 이벤트를 받아서 EntityChangeHandler 빈들에게 전달
+ *
+ * 벌크 연산이나 JDBC 처럼 영속성 컨텍스트를 안거치는 변경은 하이버네이트 이벤트가 안나오니까
+ * 그 코드에서 직접 publishBulk()를 호출해줘야 한다. (MemberBulkRepository 참고)
+ */
+@Slf4j
+@Component
+public class EntityChangePublisher implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<EntityChangeHandler> handlers; // 핸들러가 다른 리포지토리를 의존해도 순환참조 안생기게 지연 조회
+
+    public EntityChangePublisher(EntityManagerFactory entityManagerFactory, ObjectProvider<EntityChangeHandler> handlers) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.handlers = handlers;
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, persister.getMappedClass(), event.getEntity(),
+                event.getId(), persister.getPropertyNames(), null, event.getState()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, persister.getMappedClass(), event.getEntity(),
+                event.getId(), persister.getPropertyNames(), event.getOldState(), event.getState()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(new EntityChangeEvent(EntityChangeEvent.Type.DELETE, persister.getMappedClass(), event.getEntity(),
+                event.getId(), persister.getPropertyNames(), event.getDeletedState(), null));
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    public void publishBulk(Class<?> entityType) {
+        publish(EntityChangeEvent.bulk(entityType));
+    }
+
+    public void publish(EntityChangeEvent event) {
+        handlers.orderedStream().forEach(handler -> handler.onChange(event));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEvents().add(event);
+        } else {
+            dispatchAfterCommit(Collections.singletonList(event));
+        }
+    }
+
+    /**
+     * 현재 트랜잭션에 아직 커밋 안된 entityType 변경이 있는지 (afterCommit으로만 갱신되는 인덱스/캐시를 우회할지 판단용)
+     * - flush 된 변경: 이 트랜잭션에서 모아둔 이벤트 (BULK 포함)
+     * - 아직 flush 안된 변경: 트랜잭션의 영속성 컨텍스트가 dirty 한지 (타입 구분 없이 보수적으로 판단)
+     * 트랜잭션이 없으면 false
+     */
+    public boolean hasUncommittedChanges(Class<?> entityType) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        List<EntityChangeEvent> pending = (List<EntityChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null && pending.stream().anyMatch(event -> event.isFor(entityType))) {
+            return true;
+        }
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        return em != null && em.unwrap(Session.class).isDirty();
+    }
+
+    // 트랜잭션마다 이벤트를 모아뒀다가 커밋되면 한번에 전달 (롤백되면 버림)
+    @SuppressWarnings("unchecked")
+    private List<EntityChangeEvent> pendingEvents() {
+        List<EntityChangeEvent> pending = (List<EntityChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        List<EntityChangeEvent> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(EntityChangePublisher.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(EntityChangePublisher.this, created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(EntityChangePublisher.this);
+                if (status == STATUS_COMMITTED) {
+                    dispatchAfterCommit(created);
+                }
+            }
+        });
+        return created;
+    }
+
+    private void dispatchAfterCommit(List<EntityChangeEvent> events) {
+        handlers.orderedStream().forEach(handler -> {
+            for (EntityChangeEvent event : events) {
+                try {
+                    handler.afterCommit(event);
+                } catch (RuntimeException e) {
+                    // 커밋은 이미 끝났으니 예외를 던져봤자 의미가 없음. 로그만 남긴다.
+                    log.warn("afterCommit handler failed. handler={}, event={}", handler.getClass().getSimpleName(), event, e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+import org.springframework.util.Assert;
+
+import javax.persistence.AttributeNode;
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Subgraph;
+import javax.persistence.metamodel.ManagedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 조회할 때 같이 가져올 연관관계 범위 (JPA 엔티티 그래프)
+ *
+ * 같은 쿼리를 페치 조인 있는 버전/없는 버전으로 따로 만들지 않고, 호출하는 쪽에서 필요한 만큼만 고르게 한다.
+ * - FetchPlan.LEAN : 연관관계는 하나도 안가져옴 (team은 id만 있는 프록시)
+ * - FetchPlan.of(member.team) : 회원 + 팀
+ * - FetchPlan.of(member.team.members) : 회원 + 팀 + 팀의 회원들
+ * - FetchPlan.named("Member.team") : 엔티티에 @NamedEntityGraph로 선언해둔 그래프
+ *
+ * 참고: javax.persistence.fetchgraph 힌트로 적용하므로 그래프에 없는 연관관계는 LAZY로 남는다.
+ * 참고: 컬렉션이 들어간 플랜은 SQL로 페이징을 못하니 applyPagination에는 쓸 수 없다. (TeamQueryRepository 참고)
+ */
+public final class FetchPlan {
+
+    public static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+
+    public static final FetchPlan LEAN = new FetchPlan(null, Collections.emptyList());
+
+    private final String graphName;
+    private final List<List<String>> attributePaths;
+
+    private FetchPlan(String graphName, List<List<String>> attributePaths) {
+        this.graphName = graphName;
+        this.attributePaths = attributePaths;
+    }
+
+    public static FetchPlan named(String graphName) {
+        Assert.hasText(graphName, "graphName must not be empty!");
+        return new FetchPlan(graphName, Collections.emptyList());
+    }
+
+    /**
+     * 예) FetchPlan.of("team", "team.members")
+     */
+    public static FetchPlan of(String... attributePaths) {
+        List<List<String>> paths = new ArrayList<>();
+        for (String attributePath : attributePaths) {
+            Assert.hasText(attributePath, "attributePath must not be empty!");
+            paths.add(Arrays.asList(attributePath.split("\\.")));
+        }
+        return new FetchPlan(null, Collections.unmodifiableList(paths));
+    }
+
+    /**
+     * 예) FetchPlan.of(member.team, member.team.members)
+     * 루트(member)를 뺀 속성 이름들로 바꿔서 저장한다.
+     */
+    public static FetchPlan of(Path<?>... paths) {
+        List<List<String>> attributePaths = new ArrayList<>();
+        for (Path<?> path : paths) {
+            attributePaths.add(toAttributePath(path));
+        }
+        return new FetchPlan(null, Collections.unmodifiableList(attributePaths));
+    }
+
+    public boolean isLean() {
+        return graphName == null && attributePaths.isEmpty();
+    }
+
+    public <T> EntityGraph<?> toEntityGraph(EntityManager em, Class<T> rootType) {
+        if (graphName != null) {
+            return em.getEntityGraph(graphName);
+        }
+        EntityGraph<T> graph = em.createEntityGraph(rootType);
+        for (List<String> attributePath : attributePaths) {
+            addPath(graph, attributePath);
+        }
+        return graph;
+    }
+
+    /**
+     * 그래프 안에 컬렉션 연관관계가 있는지 (있으면 행이 늘어나서 SQL 페이징이 안됨)
+     */
+    public boolean hasCollection(EntityManager em, Class<?> rootType) {
+        EntityGraph<?> graph = toEntityGraph(em, rootType);
+        return hasCollection(em, em.getMetamodel().managedType(rootType), graph.getAttributeNodes());
+    }
+
+    private static boolean hasCollection(EntityManager em, ManagedType<?> type, List<AttributeNode<?>> nodes) {
+        for (AttributeNode<?> node : nodes) {
+            if (type.getAttribute(node.getAttributeName()).isCollection()) {
+                return true;
+            }
+            for (Subgraph<?> subgraph : node.getSubgraphs().values()) {
+                if (hasCollection(em, em.getMetamodel().managedType(subgraph.getClassType()), subgraph.getAttributeNodes())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void addPath(EntityGraph<?> graph, List<String> attributePath) {
+        if (attributePath.size() == 1) {
+            graph.addAttributeNodes(attributePath.get(0));
+            return;
+        }
+        Subgraph<?> subgraph = graph.addSubgraph(attributePath.get(0));
+        for (int i = 1; i < attributePath.size() - 1; i++) {
+            subgraph = subgraph.addSubgraph(attributePath.get(i));
+        }
+        subgraph.addAttributeNodes(attributePath.get(attributePath.size() - 1));
+    }
+
+    private static List<String> toAttributePath(Path<?> path) {
+        LinkedList<String> names = new LinkedList<>();
+        Path<?> current = path;
+        while (current.getMetadata().getParent() != null) {
+            PathMetadata metadata = current.getMetadata();
+            Assert.isTrue(metadata.getPathType() == PathType.PROPERTY, "Only property paths can be fetched: " + path);
+            names.addFirst(metadata.getName());
+            current = metadata.getParent();
+        }
+        Assert.isTrue(!names.isEmpty(), "Root path can not be fetched: " + path);
+        return Collections.unmodifiableList(names);
+    }
+
+    @Override
+    public String toString() {
+        return graphName != null ? "FetchPlan(" + graphName + ")" : "FetchPlan" + attributePaths;
+    }
+}
@@ -0,0 +1,224 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.Entity;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이지 N을 조회하고 나면, 같은 검색조건/정렬로 N+1 페이지를 비동기로 미리 가져와두는 컴포넌트
+ * 클라이언트가 /v3/members 를 넘겨볼 때 거의 항상 바로 다음 페이지를 요청하기 때문.
+ *
+ * - 미리 가져온 페이지는 한번 쓰면 캐시에서 빠진다. (짧게 사는 캐시)
+ * - 전체 건수(count 쿼리)도 미리 가져올 때 같이 구해서 페이지와 함께 저장한다.
+ *   -> 미리 가져온 페이지를 쓸 때는 content, count 쿼리 둘 다 안나감
+ * - 가져올 때의 ChangeVersions 버전을 같이 저장해두고, 쓸 때 버전이 다르거나 TTL이 지났으면 버리고 DB에서 다시 조회
+ *   (전체 건수도 같은 버전/TTL 기준이라 content와 어긋나지 않음)
+ * - 메모리 제한: 최대 max-entries 페이지, 페이지당 max-rows 로우를 넘으면 저장하지 않음
+ * - DTO/Tuple 프로젝션 결과만 캐시할 수 있다. 엔티티는 IllegalArgumentException
+ *   (다음 페이지는 트랜잭션 없는 다른 스레드의 임시 영속성 컨텍스트에서 읽으므로, 나중에 요청 스레드에서
+ *    지연로딩하면 OSIV가 켜져 있어도 LazyInitializationException)
+ *
+ * 설정 (application.yml)
+ * querydsl.prefetch.enabled: 기본 false (켜야 동작)
+ * querydsl.prefetch.max-entries, max-rows, ttl-millis
+ */
+@Slf4j
+@Component
+public class PagePrefetcher {
+
+    private final ChangeVersions changeVersions;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final int maxRows;
+    private final long ttlMillis;
+
+    private final Map<CacheKey, Entry> cache = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PagePrefetcher(ChangeVersions changeVersions,
+                          @Value("${querydsl.prefetch.enabled:false}") boolean enabled,
+                          @Value("${querydsl.prefetch.max-entries:256}") int maxEntries,
+                          @Value("${querydsl.prefetch.max-rows:1000}") int maxRows,
+                          @Value("${querydsl.prefetch.ttl-millis:5000}") long ttlMillis) {
+        this.changeVersions = changeVersions;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+        this.ttlMillis = ttlMillis;
+        this.executor = new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxEntries), runnable -> {
+            Thread thread = new Thread(runnable, "page-prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param key       검색조건처럼 페이지를 구분하는 값 (equals/hashCode 필수, 이후에 바뀌면 안됨)
+     * @param dependsOn 결과가 의존하는 엔티티 타입. 이 타입이 바뀌면 미리 가져온 페이지는 버린다.
+     * @param loader    pageable로 한 페이지를 조회하는 함수 (다른 스레드에서도 호출되므로 트랜잭션에 의존하면 안됨)
+     *                  DTO/Tuple 프로젝션만 가능 - 엔티티를 돌려주면 IllegalArgumentException
+     * @param total     전체 건수를 세는 함수 (loader와 마찬가지로 다른 스레드에서도 호출됨)
+     *                  PageableExecutionUtils와 같이 필요할 때만 호출한다. (첫 페이지가 덜 찼거나 마지막 페이지면 생략)
+     */
+    public <T> Page<T> fetch(Object key, Pageable pageable, Class<?>[] dependsOn,
+                             Function<Pageable, List<T>> loader, LongSupplier total) {
+        if (!enabled || pageable.isUnpaged()) {
+            return PageableExecutionUtils.getPage(loader.apply(pageable), pageable, total);
+        }
+
+        Page<T> page = cached(new CacheKey(key, pageable), dependsOn);
+        if (page == null) {
+            misses.incrementAndGet();
+            List<T> content = loader.apply(pageable);
+            Assert.isTrue(!containsEntity(content),
+                    "PagePrefetcher caches DTO/Tuple projections only, not entities. key=" + key);
+            page = PageableExecutionUtils.getPage(content, pageable, total);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        // 현재 페이지가 꽉 찼을 때만 다음 페이지가 있을 수 있음
+        if (page.getNumberOfElements() == pageable.getPageSize()) {
+            prefetch(new CacheKey(key, pageable.next()), dependsOn, loader, total);
+        }
+        return page;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Page<T> cached(CacheKey cacheKey, Class<?>[] dependsOn) {
+        Entry entry = cache.remove(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version != changeVersions.version(dependsOn) || entry.isExpired(System.currentTimeMillis())) {
+            stale.incrementAndGet();
+            return null;
+        }
+        return new PageImpl<>((List<T>) entry.content, cacheKey.pageable, entry.total);
+    }
+
+    private <T> void prefetch(CacheKey cacheKey, Class<?>[] dependsOn, Function<Pageable, List<T>> loader, LongSupplier total) {
+        if (cache.containsKey(cacheKey)) {
+            return;
+        }
+        if (cache.size() >= maxEntries) {
+            purgeExpired();
+            if (cache.size() >= maxEntries) {
+                rejected.incrementAndGet();
+                return;
+            }
+        }
+
+        try {
+            executor.execute(() -> {
+                // 조회 전에 버전을 읽어둬야, 조회 중에 바뀐 데이터를 다음에 쓸 때 걸러낼 수 있음
+                long version = changeVersions.version(dependsOn);
+                try {
+                    List<T> content = loader.apply(cacheKey.pageable);
+                    if (content.size() <= maxRows && cache.size() < maxEntries && !containsEntity(content)) {
+                        // 전체 건수도 같은 버전 기준으로 같이 저장 (저장 안할 페이지면 count 쿼리도 안함)
+                        long totalElements = PageableExecutionUtils.getPage(content, cacheKey.pageable, total).getTotalElements();
+                        cache.put(cacheKey, new Entry(Collections.unmodifiableList(content), totalElements, version,
+                                System.currentTimeMillis() + ttlMillis));
+                        prefetched.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("page prefetch failed. key={}", cacheKey, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+        }
+    }
+
+    // 엔티티(프록시 포함)나 엔티티가 들어있는 Tuple인지
+    private static boolean containsEntity(List<?> content) {
+        for (Object row : content) {
+            Object[] values = row instanceof Tuple ? ((Tuple) row).toArray() : new Object[]{row};
+            for (Object value : values) {
+                if (value != null && AnnotationUtils.findAnnotation(value.getClass(), Entity.class) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    public PrefetchStats getStats() {
+        return new PrefetchStats(hits.get(), misses.get(), prefetched.get(), stale.get(), rejected.get(), cache.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EqualsAndHashCode
+    private static class CacheKey {
+        private final Object key;
+        private final Pageable pageable;
+
+        CacheKey(Object key, Pageable pageable) {
+            this.key = key;
+            this.pageable = pageable;
+        }
+
+        @Override
+        public String toString() {
+            return key + " " + pageable;
+        }
+    }
+
+    private static class Entry {
+        private final List<?> content;
+        private final long total;
+        private final long version;
+        private final long expiresAt;
+
+        Entry(List<?> content, long total, long version, long expiresAt) {
+            this.content = content;
+            this.total = total;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now > expiresAt;
+        }
+    }
+}
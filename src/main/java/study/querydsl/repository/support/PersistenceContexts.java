@@ -0,0 +1,32 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.engine.spi.SessionImplementor;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 벌크 연산처럼 영속성 컨텍스트를 거치지 않는 변경 후에, 이미 올라와 있는 엔티티를 골라서 정리해주는 유틸
+ * em.clear()는 관계없는 엔티티까지 전부 날려버리니까, 영향받은 엔티티만 detach 한다.
+ */
+public final class PersistenceContexts {
+
+    private PersistenceContexts() {
+    }
+
+    public static <T> int detach(EntityManager em, Class<T> entityClass, Predicate<T> condition) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Object> managed = new ArrayList<>(session.getPersistenceContextInternal().getEntitiesByKey().values());
+
+        int detached = 0;
+        for (Object entity : managed) {
+            if (entityClass.isInstance(entity) && condition.test(entityClass.cast(entity))) {
+                em.detach(entity);
+                detached++;
+            }
+        }
+        return detached;
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// PagePrefetcher 통계 스냅샷
+@Getter
+@ToString
+public class PrefetchStats {
+
+    private final long hits;        // 미리 가져온 페이지를 그대로 사용
+    private final long misses;      // 미리 가져온 게 없거나 못써서 DB 조회
+    private final long prefetched;  // 다음 페이지를 미리 가져와서 저장
+    private final long stale;       // 미리 가져왔지만 그 사이 데이터가 바뀌었거나 TTL이 지나서 버림
+    private final long rejected;    // 캐시/큐가 가득 차서 미리 가져오기를 포기
+    private final int entries;
+
+    public PrefetchStats(long hits, long misses, long prefetched, long stale, long rejected, int entries) {
+        this.hits = hits;
+        this.misses = misses;
+        this.prefetched = prefetched;
+        this.stale = stale;
+        this.rejected = rejected;
+        this.entries = entries;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -1,25 +1,36 @@
 package study.querydsl.repository.support;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -34,6 +45,8 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private PagePrefetcher pagePrefetcher;
+    private SubQueryRewriter subQueryRewriter;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -49,6 +62,13 @@ public abstract class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
         this.queryFactory = new JPAQueryFactory(entityManager);
+        this.subQueryRewriter = new SubQueryRewriter(entityManager);
+    }
+
+    // 선택 사항 - 없으면 prefetch용 applyPagination도 그냥 applyPagination으로 동작
+    @Autowired(required = false)
+    public void setPagePrefetcher(PagePrefetcher pagePrefetcher) {
+        this.pagePrefetcher = pagePrefetcher;
     }
 
     @PostConstruct
@@ -79,12 +99,49 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    // 엔티티 그래프(FetchPlan)에 있는 연관관계까지 같이 조회 (FetchPlan 참고)
+    protected <T> JPAQuery<T> selectFrom(EntityPath<T> from, FetchPlan fetchPlan) {
+        return applyFetchPlan(selectFrom(from), from.getType(), fetchPlan);
+    }
+
+    /**
+     * 컬렉션이 들어간 플랜은 자식 로우 수만큼 루트 엔티티가 중복돼서 나오므로 distinct를 붙인다.
+     * (SQL에는 distinct를 안넘기고 하이버네이트가 메모리에서 중복만 제거 - HINT_PASS_DISTINCT_THROUGH)
+     */
+    protected <T> JPAQuery<T> applyFetchPlan(JPAQuery<T> query, Class<?> rootType, FetchPlan fetchPlan) {
+        Assert.notNull(fetchPlan, "FetchPlan must not be null!");
+        if (fetchPlan.hasCollection(getEntityManager(), rootType)) {
+            query.distinct().setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false);
+        }
+        return query.setHint(FetchPlan.FETCH_GRAPH_HINT, fetchPlan.toEntityGraph(getEntityManager(), rootType));
+    }
+
+    // where 절의 비상관 서브쿼리를 먼저 실행해서 값으로 바꿔줌 (SubQueryRewriter 참고)
+    // 서브쿼리마다 쿼리가 한번씩 더 나가므로 applyPagination/stream 에서는 자동으로 안하고, 필요한 쿼리에서만 직접 호출
+    protected <T> JPAQuery<T> rewriteSubQueries(JPAQuery<T> query) {
+        return subQueryRewriter.rewrite(query);
+    }
+
+    // 허용한 정렬키만 OrderSpecifier로 바꿔서 정렬 (마지막에 id 같은 tiebreaker가 붙음, SortTranslator 참고)
+    protected <T> JPAQuery<T> applySorting(JPAQuery<T> query, Sort sort, SortTranslator sortTranslator) {
+        return query.orderBy(sortTranslator.translate(sort));
+    }
+
+    /**
+     * @deprecated Querydsl.applyPagination이라 클라이언트가 보낸 아무 프로퍼티로나 정렬된다. (인덱스 없는 정렬도 그대로 실행)
+     * SortTranslator를 받는 applyPagination을 사용하자.
+     */
+    @Deprecated
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
     }
 
+    /**
+     * @deprecated 위와 같은 이유로 SortTranslator를 받는 applyPagination(pageable, sortTranslator, contentQuery, countQuery) 사용
+     */
+    @Deprecated
     protected <T> Page<T> applyPagination(
             Pageable pageable,
             Function<JPAQueryFactory, JPAQuery> contentQuery,
@@ -95,4 +152,137 @@ public abstract class Querydsl4RepositorySupport {
         JPAQuery countResult = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
     }
+
+    /**
+     * 정렬을 SortTranslator로 변환하는 applyPagination (Querydsl.applyPagination은 아무 프로퍼티로나 정렬해줌)
+     * 허용하지 않은 정렬키는 InvalidSortException (strict일 때) -> 쿼리 실행 전에 실패
+     */
+    protected <T> Page<T> applyPagination(
+            Pageable pageable,
+            SortTranslator sortTranslator,
+            Function<JPAQueryFactory, JPAQuery> contentQuery
+    ) {
+        OrderSpecifier<?>[] orderBy = sortTranslator.translate(pageable.getSort());
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = paginate(jpaQuery, pageable, orderBy).fetch();
+        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+    }
+
+    protected <T> Page<T> applyPagination(
+            Pageable pageable,
+            SortTranslator sortTranslator,
+            Function<JPAQueryFactory, JPAQuery> contentQuery,
+            Function<JPAQueryFactory, JPAQuery> countQuery
+    ) {
+        OrderSpecifier<?>[] orderBy = sortTranslator.translate(pageable.getSort());
+        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = paginate(jpaContentQuery, pageable, orderBy).fetch();
+        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+    }
+
+    /**
+     * contentQuery 에만 FetchPlan을 적용하는 applyPagination (count 쿼리에 엔티티 그래프가 붙으면 안되니 따로 만든다)
+     * 참고: 컬렉션이 들어간 플랜은 하이버네이트가 메모리에서 페이징하므로 막아둔다.
+     */
+    protected <T> Page<T> applyPagination(
+            Pageable pageable,
+            SortTranslator sortTranslator,
+            FetchPlan fetchPlan,
+            Function<JPAQueryFactory, JPAQuery> contentQuery
+    ) {
+        Assert.isTrue(!fetchPlan.hasCollection(getEntityManager(), domainClass),
+                "FetchPlan with collection can not be paginated in SQL: " + fetchPlan);
+        OrderSpecifier<?>[] orderBy = sortTranslator.translate(pageable.getSort());
+        JPAQuery jpaContentQuery = applyFetchPlan(contentQuery.apply(getQueryFactory()), domainClass, fetchPlan);
+        List<T> content = paginate(jpaContentQuery, pageable, orderBy).fetch();
+        return PageableExecutionUtils.getPage(content, pageable, () -> contentQuery.apply(getQueryFactory()).fetchCount());
+    }
+
+    private static JPAQuery paginate(JPAQuery query, Pageable pageable, OrderSpecifier<?>[] orderBy) {
+        query.orderBy(orderBy);
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return query;
+    }
+
+    /**
+     * 결과를 리스트로 모으지 않고 DB 커서(ScrollableResults)로 한 건씩 읽는 Stream
+     * - 반드시 try-with-resources로 닫아야 함 (끝까지 안 읽고 limit, findFirst 등으로 중간에 끝내도 close 하면 커서가 닫힘)
+     * - option.clearEvery 건마다 영속성 컨텍스트를 flush + clear 하므로 이전에 받은 엔티티는 준영속 상태가 된다.
+     * - 커서가 열려 있는 동안 커넥션이 필요하므로 트랜잭션 안에서만 호출 가능
+     * 참고: 컬렉션 fetch join은 로우마다 루트 엔티티가 중복돼서 나오니 스트림에는 쓰지 않는다.
+     */
+    protected <T> Stream<T> stream(JPAQuery<T> query, StreamOption option) {
+        Assert.notNull(option, "StreamOption must not be null!");
+        Assert.state(TransactionSynchronizationManager.isActualTransactionActive(),
+                "stream() requires an active transaction!");
+
+        CloseableIterator<T> iterator = query
+                .setHint(QueryHints.HINT_FETCH_SIZE, option.getFetchSize())
+                .iterate();
+        Iterator<T> clearing = new Iterator<T>() {
+            private long count;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (option.getClearEvery() > 0 && count > 0 && count % option.getClearEvery() == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+                count++;
+                return iterator.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(clearing, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * stream()을 끝까지 읽으면서 action을 실행하고 처리한 건수를 돌려줌 (예외가 나도 커서는 닫힘)
+     */
+    protected <T> long forEach(JPAQuery<T> query, StreamOption option, Consumer<? super T> action) {
+        long count = 0;
+        try (Stream<T> stream = stream(query, option)) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 다음 페이지를 미리 가져오는 applyPagination (querydsl.prefetch.enabled 설정이 켜져 있을 때만 동작)
+     * prefetchKey: 검색조건처럼 페이지를 구분하는 값, dependsOn: 결과가 의존하는 엔티티 타입
+     * 참고: 다음 페이지는 다른 스레드에서 조회하므로 contentQuery 안에서 트랜잭션에 의존하면 안된다.
+     * 참고: 미리 가져온 페이지를 쓸 때는 전체 건수도 같이 저장해둔 값을 쓰므로 count 쿼리도 나가지 않는다.
+     * 참고: DTO/Tuple 프로젝션만 가능 (selectFrom(member) 같은 엔티티 조회는 IllegalArgumentException, PagePrefetcher 참고)
+     * PagePrefetcher 빈이 없으면 미리 가져오지 않고 applyPagination(pageable, sortTranslator, contentQuery)와 같다.
+     */
+    protected <T> Page<T> applyPagination(
+            Pageable pageable,
+            SortTranslator sortTranslator,
+            Object prefetchKey,
+            Class<?>[] dependsOn,
+            Function<JPAQueryFactory, JPAQuery> contentQuery
+    ) {
+        Assert.isTrue(!(contentQuery.apply(getQueryFactory()).getMetadata().getProjection() instanceof EntityPath),
+                "Prefetched pages must be DTO/Tuple projections, not entities!");
+        if (pagePrefetcher == null) {
+            return applyPagination(pageable, sortTranslator, contentQuery);
+        }
+        // 정렬은 미리 변환 (허용하지 않은 정렬키면 조회/미리 가져오기 전에 실패)
+        OrderSpecifier<?>[] orderBy = sortTranslator.translate(pageable.getSort());
+        return pagePrefetcher.fetch(prefetchKey, pageable, dependsOn,
+                page -> paginate(contentQuery.apply(getQueryFactory()), page, orderBy).fetch(),
+                () -> contentQuery.apply(getQueryFactory()).fetchCount());
+    }
 }
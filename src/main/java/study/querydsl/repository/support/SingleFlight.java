@@ -0,0 +1,96 @@
+package study.querydsl.repository.support;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 같은 조회가 동시에 여러 번 들어오면 DB 쿼리는 한번만 실행하고 결과를 같이 쓰게 하는 컴포넌트 (single-flight)
+ * 순간적으로 같은 검색조건 요청이 몰릴 때 DB 부하가 요청 수가 아니라 서로 다른 쿼리 수에 비례하게 된다.
+ *
+ * - 먼저 온 요청(leader)이 쿼리를 실행하고, 그동안 같은 키로 온 요청(follower)은 그 결과를 기다렸다가 같이 받는다.
+ * - 쿼리가 끝나면 바로 키를 지운다. (결과를 캐시하지 않음)
+ * - 키에 dependsOn 엔티티의 ChangeVersions 버전을 넣어서, 데이터가 바뀐 뒤에 온 요청은 바뀌기 전에 시작한 쿼리에 합류하지 않는다.
+ * - 쓰기 트랜잭션 안에서는 그 트랜잭션에서 바꾼(커밋 안된) 내용이 보여야 하니 합치지 않고 바로 실행한다.
+ *
+ * 참고: 여러 요청이 같은 List를 받으므로 수정할 수 없는 List로 돌려준다.
+ */
+@Component
+public class SingleFlight {
+
+    private final ChangeVersions changeVersions;
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    public SingleFlight(ChangeVersions changeVersions) {
+        this.changeVersions = changeVersions;
+    }
+
+    /**
+     * @param key       조회를 구분하는 값 (equals/hashCode 필수, 이후에 바뀌면 안됨)
+     * @param dependsOn 결과가 의존하는 엔티티 타입
+     */
+    public <T> List<T> execute(Object key, Class<?>[] dependsOn, Supplier<List<T>> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+
+        List<Object> flightKey = Arrays.asList(key, changeVersions.version(dependsOn));
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+        if (leader != null) {
+            shared.incrementAndGet();
+            return await(leader);
+        }
+
+        executed.incrementAndGet();
+        try {
+            List<T> result = Collections.unmodifiableList(loader.get());
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    // 실행한 쿼리 수
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    // 다른 요청의 쿼리 결과를 같이 쓴 요청 수 (아낀 쿼리 수)
+    public long getShared() {
+        return shared.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> await(CompletableFuture<Object> leader) {
+        try {
+            return (List<T>) leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
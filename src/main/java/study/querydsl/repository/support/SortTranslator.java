@@ -0,0 +1,139 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 스프링 데이터 Sort -> Querydsl OrderSpecifier 변환 (허용한 정렬키만)
+ *
+ * Querydsl.applyPagination은 클라이언트가 보낸 아무 프로퍼티로나 정렬해줘서, 인덱스 없는 컬럼으로 정렬하면 전체 정렬(filesort)이 된다.
+ * 그래서 인덱스를 탈 수 있는 정렬키만 등록해두고, 키 이름 -> 실제 경로로 바꿔준다.
+ * - 다른 엔티티 경로도 키로 등록은 가능 (teamName -> team.name)
+ *   단, 조인한 테이블 컬럼으로 정렬하면 tiebreaker(루트 id)까지 한 인덱스로 못읽어서 전체 정렬이 되니 인덱스 정렬키로는 등록하지 말자.
+ * - 키 하나가 여러 경로일 수 있음 (ageBand -> member.ageBand, member.age : 복합 인덱스 순서 그대로)
+ * - 정렬키는 maxKeys(기본 1)개까지만 (여러 인덱스에 걸친 정렬은 결국 전체 정렬)
+ * - 마지막에 tiebreaker(id)를 붙여서 같은 값끼리도 순서가 항상 같게 함 (페이지 사이에 중복/누락 없음)
+ *   방향은 마지막 정렬키와 맞춤 -> (username desc, id desc) 처럼 인덱스를 역순으로 그대로 읽을 수 있음
+ *
+ * 허용하지 않은 정렬키나 maxKeys를 넘는 키는
+ * - strict: InvalidSortException (컨트롤러에서는 400)
+ * - strict가 아니면: 그 키만 무시하고 나머지로 정렬
+ */
+@Slf4j
+public class SortTranslator {
+
+    private final Map<String, ComparableExpressionBase<?>[]> keys;
+    private final ComparableExpressionBase<?> tiebreaker;
+    private final int maxKeys;
+    private final boolean strict;
+
+    private SortTranslator(Builder builder) {
+        this.keys = Collections.unmodifiableMap(new LinkedHashMap<>(builder.keys));
+        this.tiebreaker = builder.tiebreaker;
+        this.maxKeys = builder.maxKeys;
+        this.strict = builder.strict;
+    }
+
+    public static Builder builder(ComparableExpressionBase<?> tiebreaker) {
+        return new Builder(tiebreaker);
+    }
+
+    public OrderSpecifier<?>[] translate(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        Sort.Direction lastDirection = Sort.Direction.ASC;
+        boolean hasTiebreaker = false;
+        int used = 0;
+
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?>[] paths = keys.get(order.getProperty());
+            if (paths == null) {
+                reject("not sortable: " + order.getProperty() + " (allowed: " + keys.keySet() + ")");
+                continue;
+            }
+            if (used == maxKeys) {
+                reject("too many sort keys: " + sort + " (max " + maxKeys + ")");
+                continue;
+            }
+            used++;
+            for (ComparableExpressionBase<?> path : paths) {
+                orders.add(toOrderSpecifier(path, order.getDirection(), order.getNullHandling()));
+                hasTiebreaker |= path.equals(tiebreaker);
+            }
+            lastDirection = order.getDirection();
+        }
+
+        if (!hasTiebreaker) {
+            orders.add(toOrderSpecifier(tiebreaker, lastDirection, Sort.NullHandling.NATIVE));
+        }
+        return orders.toArray(new OrderSpecifier[0]);
+    }
+
+    public boolean isSortable(String key) {
+        return keys.containsKey(key);
+    }
+
+    private void reject(String message) {
+        if (strict) {
+            throw new InvalidSortException(message);
+        }
+        log.debug("sort ignored - {}", message);
+    }
+
+    private static OrderSpecifier<?> toOrderSpecifier(ComparableExpressionBase<?> path, Sort.Direction direction,
+                                                      Sort.NullHandling nullHandling) {
+        OrderSpecifier<?> orderSpecifier = direction.isAscending() ? path.asc() : path.desc();
+        switch (nullHandling) {
+            case NULLS_FIRST:
+                return orderSpecifier.nullsFirst();
+            case NULLS_LAST:
+                return orderSpecifier.nullsLast();
+            default:
+                return orderSpecifier;
+        }
+    }
+
+    public static final class Builder {
+
+        private final Map<String, ComparableExpressionBase<?>[]> keys = new LinkedHashMap<>();
+        private final ComparableExpressionBase<?> tiebreaker;
+        private int maxKeys = 1;
+        private boolean strict = true;
+
+        private Builder(ComparableExpressionBase<?> tiebreaker) {
+            Assert.notNull(tiebreaker, "tiebreaker must not be null!");
+            this.tiebreaker = tiebreaker;
+        }
+
+        public Builder key(String name, ComparableExpressionBase<?>... paths) {
+            Assert.hasText(name, "name must not be empty!");
+            Assert.notEmpty(paths, "paths must not be empty!");
+            keys.put(name, Arrays.copyOf(paths, paths.length));
+            return this;
+        }
+
+        public Builder maxKeys(int maxKeys) {
+            Assert.isTrue(maxKeys > 0, "maxKeys must be positive!");
+            this.maxKeys = maxKeys;
+            return this;
+        }
+
+        public Builder strict(boolean strict) {
+            this.strict = strict;
+            return this;
+        }
+
+        public SortTranslator build() {
+            return new SortTranslator(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+/**
+ * 결과를 리스트로 모으지 않고 한 건씩 처리할 때(Querydsl4RepositorySupport.stream/forEach) 사용하는 옵션
+ * - fetchSize: JDBC 드라이버가 DB에서 한번에 가져오는 로우 수
+ * - clearEvery: 이 건수마다 영속성 컨텍스트를 flush + clear (0이면 안함) -> 엔티티가 계속 쌓이지 않아서 메모리가 일정하게 유지됨
+ */
+@Getter
+public class StreamOption {
+
+    public static final int DEFAULT_FETCH_SIZE = 500;
+    public static final int DEFAULT_CLEAR_EVERY = 1000;
+
+    private final int fetchSize;
+    private final int clearEvery;
+
+    private StreamOption(int fetchSize, int clearEvery) {
+        Assert.isTrue(fetchSize > 0, "fetchSize must be positive!");
+        Assert.isTrue(clearEvery >= 0, "clearEvery must not be negative!");
+        this.fetchSize = fetchSize;
+        this.clearEvery = clearEvery;
+    }
+
+    public static StreamOption defaults() {
+        return of(DEFAULT_FETCH_SIZE);
+    }
+
+    public static StreamOption of(int fetchSize) {
+        return new StreamOption(fetchSize, DEFAULT_CLEAR_EVERY);
+    }
+
+    public StreamOption clearEvery(int clearEvery) {
+        return new StreamOption(fetchSize, clearEvery);
+    }
+}
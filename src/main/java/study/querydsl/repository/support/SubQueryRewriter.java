@@ -0,0 +1,240 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.JoinExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * where 절의 서브쿼리 중 바깥 쿼리를 참조하지 않는(비상관) 서브쿼리를 먼저 한번 실행해서 상수로 바꿔주는 재작성 단계
+ *
+ * 예) member.age.eq(select(memberSub.age.max()).from(memberSub))
+ *  -> select max(age) 를 먼저 1번 실행 -> member.age.eq(40)
+ * 예) member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10)))
+ *  -> 결과 목록을 먼저 조회 -> member.age.in(20, 30, 40)
+ *
+ * DB에 따라서 이런 서브쿼리도 로우마다 다시 평가하는 경우가 있어서, 값으로 바꿔서 넘기면 인덱스도 탈 수 있다.
+ * 같은 쿼리 안에서 똑같은 서브쿼리가 여러 번 나오면 한번만 실행한다.
+ *
+ * 참고: 바깥 쿼리를 참조하는(상관) 서브쿼리는 그대로 둔다.
+ * JPQL(하이버네이트 5)은 from 절 서브쿼리(derived table)와 윈도우 함수를 지원하지 않아서 조인으로 바꿀 수가 없음.
+ * 참고: 서브쿼리를 먼저 실행하므로 같은 트랜잭션 안에서 실행해야 원래 쿼리와 같은 시점의 데이터를 본다.
+ * 참고: 서브쿼리마다 왕복이 한번 늘어나므로 자동으로 적용하지 않는다. 필요한 쿼리에서만 직접 rewrite 하자.
+ * (Querydsl4RepositorySupport.rewriteSubQueries, MemberTestRepository.findOldest 참고)
+ * 참고: select 절 서브쿼리는 하이버네이트가 select 절 파라미터를 지원하지 않아서 바꾸지 않는다.
+ */
+public class SubQueryRewriter {
+
+    // in 목록이 너무 길어지면 서브쿼리로 두는 게 나음 (MAX_IN_VALUES + 1건까지만 읽어보고 넘으면 서브쿼리 그대로)
+    public static final int MAX_IN_VALUES = 1000;
+
+    private static final Set<Ops> COMPARISONS = EnumSet.of(Ops.EQ, Ops.NE, Ops.LT, Ops.GT, Ops.LOE, Ops.GOE, Ops.BETWEEN);
+
+    private final EntityManager em;
+    private final Visitor<Expression<?>, Map<SubQueryExpression<?>, Object>> rewriter = new Rewriter();
+
+    public SubQueryRewriter(EntityManager em) {
+        this.em = em;
+    }
+
+    public <T> JPAQuery<T> rewrite(JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+        Predicate where = metadata.getWhere();
+        if (where == null) {
+            return query;
+        }
+
+        Map<SubQueryExpression<?>, Object> resultCache = new HashMap<>();
+        Predicate rewritten = (Predicate) where.accept(rewriter, resultCache);
+        if (rewritten != where) {
+            metadata.clearWhere();
+            metadata.addWhere(rewritten);
+        }
+        return query;
+    }
+
+    public static boolean isCorrelated(SubQueryExpression<?> subQuery) {
+        return !freeRoots(subQuery).isEmpty();
+    }
+
+    private class Rewriter extends ReplaceVisitor<Map<SubQueryExpression<?>, Object>> {
+
+        @Override
+        public Expression<?> visit(Operation<?> expr, Map<SubQueryExpression<?>, Object> cache) {
+            Operator operator = expr.getOperator();
+            List<Expression<?>> args = expr.getArgs();
+
+            if (operator == Ops.IN || operator == Ops.NOT_IN) {
+                if (args.get(1) instanceof SubQueryExpression) {
+                    return rewriteIn(expr, cache);
+                }
+            } else if (COMPARISONS.contains(operator) && args.stream().anyMatch(arg -> arg instanceof SubQueryExpression)) {
+                return rewriteScalar(expr, cache);
+            }
+            return super.visit(expr, cache);
+        }
+
+        // 서브쿼리 안쪽은 건드리지 않음 (exists 처럼 비교 연산이 아닌 곳의 서브쿼리 포함)
+        @Override
+        public Expression<?> visit(SubQueryExpression<?> expr, Map<SubQueryExpression<?>, Object> cache) {
+            return expr;
+        }
+
+        private Expression<?> rewriteScalar(Operation<?> expr, Map<SubQueryExpression<?>, Object> cache) {
+            boolean changed = false;
+            List<Expression<?>> args = new ArrayList<>();
+            for (Expression<?> arg : expr.getArgs()) {
+                Expression<?> replaced = arg;
+                if (arg instanceof SubQueryExpression && !isCorrelated((SubQueryExpression<?>) arg)) {
+                    Object value = cache.computeIfAbsent((SubQueryExpression<?>) arg, sub -> fetchOne(sub));
+                    if (value != null) { // 결과가 없으면 null 비교라 원래 서브쿼리로 둔다
+                        replaced = Expressions.constant(value);
+                        changed = true;
+                    }
+                }
+                args.add(replaced);
+            }
+            return changed ? ExpressionUtils.predicate(expr.getOperator(), args.toArray(new Expression<?>[0])) : expr;
+        }
+
+        private Expression<?> rewriteIn(Operation<?> expr, Map<SubQueryExpression<?>, Object> cache) {
+            SubQueryExpression<?> subQuery = (SubQueryExpression<?>) expr.getArgs().get(1);
+            if (isCorrelated(subQuery)) {
+                return expr;
+            }
+
+            List<?> values = (List<?>) cache.computeIfAbsent(subQuery, sub -> fetch(sub));
+            if (values.size() > MAX_IN_VALUES) {
+                return expr;
+            }
+            if (values.isEmpty()) {
+                // in () 은 문법 오류라서 항상 거짓/참 조건으로 바꿈
+                return expr.getOperator() == Ops.IN
+                        ? Expressions.booleanTemplate("1 = 0")
+                        : Expressions.booleanTemplate("1 = 1");
+            }
+            return ExpressionUtils.predicate(expr.getOperator(), expr.getArgs().get(0), Expressions.constant(new ArrayList<>(values)));
+        }
+    }
+
+    private Object fetchOne(SubQueryExpression<?> subQuery) {
+        return new JPAQuery<>(em, subQuery.getMetadata().clone()).fetchOne();
+    }
+
+    private List<?> fetch(SubQueryExpression<?> subQuery) {
+        // 중복을 빼고 가져오면 in 목록이 짧아짐 (in 의미는 같음)
+        // 결과가 아주 많은 서브쿼리를 전부 메모리로 읽지 않도록 MAX_IN_VALUES + 1건까지만 (넘으면 rewriteIn에서 서브쿼리로 둠)
+        QueryMetadata metadata = subQuery.getMetadata().clone();
+        metadata.setDistinct(true);
+        metadata.setLimit(MAX_IN_VALUES + 1L);
+        return new JPAQuery<>(em, metadata).fetch();
+    }
+
+    // ===== 상관 서브쿼리 판별: 서브쿼리가 참조하는 루트 중 서브쿼리에서 선언하지 않은 것 =====
+
+    private static Set<Path<?>> freeRoots(SubQueryExpression<?> subQuery) {
+        QueryMetadata metadata = subQuery.getMetadata();
+        Set<Path<?>> declared = new HashSet<>();
+        Set<Path<?>> referenced = new HashSet<>();
+
+        for (JoinExpression join : metadata.getJoins()) {
+            Expression<?> target = join.getTarget();
+            if (target instanceof Path) {
+                declared.add(((Path<?>) target).getRoot());
+            } else if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+                // join(memberSub.team, teamSub) -> teamSub 선언, memberSub.team 은 참조
+                List<Expression<?>> aliasArgs = ((Operation<?>) target).getArgs();
+                declared.add((Path<?>) aliasArgs.get(1));
+                aliasArgs.get(0).accept(PathCollector.INSTANCE, referenced);
+            }
+            if (join.getCondition() != null) {
+                join.getCondition().accept(PathCollector.INSTANCE, referenced);
+            }
+        }
+
+        List<Expression<?>> parts = new ArrayList<>(Arrays.<Expression<?>>asList(metadata.getWhere(), metadata.getHaving(), metadata.getProjection()));
+        parts.addAll(metadata.getGroupBy());
+        metadata.getOrderBy().forEach(order -> parts.add(order.getTarget()));
+        for (Expression<?> part : parts) {
+            if (part != null) {
+                part.accept(PathCollector.INSTANCE, referenced);
+            }
+        }
+
+        referenced.removeAll(declared);
+        return referenced;
+    }
+
+    private enum PathCollector implements Visitor<Void, Set<Path<?>>> {
+        INSTANCE;
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        // 중첩 서브쿼리는 그 안에서 선언 안된 루트만 바깥으로 전달
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+            roots.addAll(freeRoots(expr));
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -622,6 +622,36 @@ public class QuerydslBasicTest {
         }
     }
 
+    /**
+     * 8.4 rankPath를 저장된 age_band 컬럼으로 대체
+     * 행마다 CASE를 계산하지 않고 idx_member_age_band 인덱스 컬럼으로 필터/정렬한다. (AgeBand 참고)
+     */
+    @Test
+    void ageBandPath() {
+        NumberExpression<Integer> rankPath = new CaseBuilder()
+                .when(member.age.between(0, 20)).then(2)
+                .when(member.age.between(21, 30)).then(1)
+                .otherwise(3);
+
+        List<Tuple> result = queryFactory
+                .select(member.username, member.ageBand)
+                .from(member)
+                .orderBy(member.ageBand.desc(), member.age.asc())
+                .fetch();
+
+        List<Tuple> expected = queryFactory
+                .select(member.username, rankPath)
+                .from(member)
+                .orderBy(rankPath.desc(), member.age.asc())
+                .fetch();
+
+        assertThat(result).extracting(tuple -> tuple.get(member.username))
+                .containsExactly("member4", "member1", "member2", "member3");
+        for (int i = 0; i < result.size(); i++) {
+            assertThat(result.get(i).get(member.ageBand).getRank()).isEqualTo(expected.get(i).get(rankPath));
+        }
+    }
+
 
     /**
      * 9-1. 상수, 문자 더하기
@@ -0,0 +1,57 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+
+    Member member1;
+    Member member2;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        member1 = new Member("member1", 10, teamA);
+        member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+
+        em.flush();
+    }
+
+    // 영속성 컨텍스트에 있던 회원이어도 팀 이름까지 채워서 입력 순서대로 응답
+    @Test
+    void findMembers() throws Exception {
+        mockMvc.perform(get("/v1/members/batch").param("ids", member2.getId() + "," + member1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("member2"))
+                .andExpect(jsonPath("$[0].teamName").value("teamA"))
+                .andExpect(jsonPath("$[1].username").value("member1"));
+    }
+
+    @Test
+    void findMembers_emptyId() throws Exception {
+        mockMvc.perform(get("/v1/members/batch").param("ids", member1.getId() + ",," + member2.getId()))
+                .andExpect(status().isBadRequest());
+    }
+}
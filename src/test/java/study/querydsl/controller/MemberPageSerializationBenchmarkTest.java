@@ -0,0 +1,92 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 회원 검색 페이지 응답 직렬화 비교 (DB 없이 직렬화만)
+ * - jackson: 지금 /v2, /v3 응답 (ObjectMapper로 PageImpl 직렬화)
+ * - compact: /v4 응답 (MemberTeamPageMessageConverter)
+ * 페이지 크기별로 응답 바이트(원본/gzip)와 한 번 직렬화하는 데 걸리는 시간 출력
+ *
+ * 실행: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+class MemberPageSerializationBenchmarkTest {
+
+    static final int[] PAGE_SIZES = {20, 100, 1000};
+    static final int ROUNDS = 2_000;
+
+    @Autowired ObjectMapper objectMapper;
+    @Autowired MemberTeamPageMessageConverter converter;
+
+    @Test
+    void serialize() throws IOException {
+        for (int size : PAGE_SIZES) {
+            Page<MemberTeamDto> page = page(size);
+            measure("jackson", size, out -> objectMapper.writeValue(out, page));
+            measure("compact", size, out -> converter.write(page, out));
+        }
+    }
+
+    private void measure(String name, int size, Writer writer) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        writer.write(raw);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(raw.toByteArray());
+        }
+
+        NullOutputStream out = new NullOutputStream();
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            writer.write(out); // warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            writer.write(out);
+        }
+        long avgMicros = (System.nanoTime() - start) / ROUNDS / 1_000;
+
+        System.out.printf("[%s] size %d: %d bytes, gzip %d bytes, avg %d us%n",
+                name, size, raw.size(), gzipped.size(), avgMicros);
+    }
+
+    private static Page<MemberTeamDto> page(int size) {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            long id = 1000L + i;
+            content.add(new MemberTeamDto(id, "member" + id, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        return new PageImpl<>(content, PageRequest.of(3, size, Sort.by("username")), 50_000);
+    }
+
+    interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.SqlStatementCounter;
+import study.querydsl.repository.support.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberSearchConditionalInterceptorTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired EntityChangePublisher entityChangePublisher;
+    @Autowired SqlStatementCounter sqlStatementCounter;
+
+    Member member1;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+
+        em.flush();
+    }
+
+    @Test
+    void notModified() throws Exception {
+        String etag = fetchEtag("/v3/members?teamName=teamA");
+
+        long before = sqlStatementCounter.current();
+        mockMvc.perform(get("/v3/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        assertThat(sqlStatementCounter.current()).isEqualTo(before);
+    }
+
+    @Test
+    void modifiedAfterWrite() throws Exception {
+        String etag = fetchEtag("/v1/members");
+
+        member1.setAge(11);
+        em.flush();
+
+        mockMvc.perform(get("/v1/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    // 벌크 연산도 버전을 올림
+    @Test
+    void modifiedAfterBulk() throws Exception {
+        String etag = fetchEtag("/v1/members");
+
+        entityChangePublisher.publishBulk(Team.class);
+
+        mockMvc.perform(get("/v1/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    // Last-Modified는 안보내고, If-Modified-Since만 있는 요청은 항상 새로 조회 (초 단위라 같은 초의 변경을 놓칠 수 있음)
+    @Test
+    void ifModifiedSinceOnly() throws Exception {
+        MvcResult result = mockMvc.perform(get("/v4/members")).andExpect(status().isOk()).andReturn();
+        assertThat(result.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)).isNull();
+        assertThat(result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+
+        member1.setAge(11);
+        em.flush();
+
+        mockMvc.perform(get("/v4/members").header(HttpHeaders.IF_MODIFIED_SINCE, System.currentTimeMillis() + 60_000))
+                .andExpect(status().isOk());
+    }
+
+    private String fetchEtag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+        return etag;
+    }
+}
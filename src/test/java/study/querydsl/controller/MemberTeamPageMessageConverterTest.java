@@ -0,0 +1,64 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamPage;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberTeamPageMessageConverterTest {
+
+    @Autowired ObjectMapper objectMapper;
+    @Autowired HttpMessageConverters httpMessageConverters;
+    @Autowired MemberTeamPageMessageConverter converter;
+
+    @Test
+    void write() throws Exception {
+        PageImpl<MemberTeamDto> page = new PageImpl<>(Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "mem\"ber2", 20, null, null)
+        ), PageRequest.of(1, 2), 5);
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(new MemberTeamPage(page), MediaType.APPLICATION_JSON, outputMessage);
+
+        JsonNode json = objectMapper.readTree(outputMessage.getBodyAsBytes());
+        assertThat(json.get("content")).hasSize(2);
+        // 기존 응답(ObjectMapper로 쓴 MemberTeamDto)과 같은 형태
+        assertThat(json.get("content").get(0)).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(page.getContent().get(0))));
+        assertThat(json.get("content").get(1).get("username").asText()).isEqualTo("mem\"ber2");
+        assertThat(json.get("content").get(1).get("teamId").isNull()).isTrue();
+        assertThat(json.get("content").get(1).get("teamName").isNull()).isTrue();
+        assertThat(json.get("page").asInt()).isEqualTo(1);
+        assertThat(json.get("size").asInt()).isEqualTo(2);
+        assertThat(json.get("totalElements").asLong()).isEqualTo(5);
+        assertThat(json.get("totalPages").asInt()).isEqualTo(3);
+        assertThat(json.get("last").asBoolean()).isFalse();
+        assertThat(json.has("pageable")).isFalse();
+        assertThat(outputMessage.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    // 기본 Jackson 컨버터보다 먼저 선택되어야 함
+    @Test
+    void registeredBeforeJackson() {
+        HttpMessageConverter<?> first = httpMessageConverters.getConverters().stream()
+                .filter(c -> c.canWrite(MemberTeamPage.class, MediaType.APPLICATION_JSON))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+
+        assertThat(first).isSameAs(converter);
+    }
+}
@@ -0,0 +1,95 @@
+package study.querydsl.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.AgeBand;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 부하 테스트용 데이터 생성 (InitMemberService의 팀 2개/회원 100명 대신 운영 규모 + 쏠림)
+ *
+ * - 팀은 JPA로 저장하고, 회원은 양이 많으니 JDBC 배치 insert로 넣는다.
+ * - 회원이 어느 팀에 속할지는 Zipf 분포로 뽑는다. (앞 번호 팀일수록 회원이 많음)
+ * - 같은 spec(seed)이면 항상 같은 데이터가 만들어진다.
+ *
+ * 참고: 테스트 전용 (빈으로 등록하지 않고 LoadTestBenchmarkTest에서 직접 생성)
+ * 참고: 청크마다 커밋하므로 트랜잭션 밖에서 호출하자.
+ * 참고: 회원 insert는 JDBC라 username_normalized, age_band도 여기서 같이 넣고, 끝나면 publishBulk()로 변경을 알린다.
+ */
+@Slf4j
+public class DatasetGenerator {
+
+    private static final String INSERT_MEMBER_SQL =
+            "insert into member (member_id, username, username_normalized, age, age_band, team_id) " +
+            "values (next value for member_seq, ?, ?, ?, ?, ?)";
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityChangePublisher entityChangePublisher;
+
+    public DatasetGenerator(EntityManager em, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            EntityChangePublisher entityChangePublisher) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityChangePublisher = entityChangePublisher;
+    }
+
+    public void generate(DatasetSpec spec) {
+        long start = System.currentTimeMillis();
+        Random random = new Random(spec.getSeed());
+        ZipfDistribution teamDistribution = new ZipfDistribution(spec.getTeamCount(), spec.getTeamSkew());
+
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < spec.getTeamCount(); i++) {
+                Team team = new Team(spec.teamName(i));
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        for (int from = 0; from < spec.getMemberCount(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, spec.getMemberCount());
+            List<Object[]> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                int age = age(spec, random);
+                String username = spec.username(i % spec.getUsernameCardinality());
+                rows.add(new Object[]{
+                        username,
+                        Member.normalizeUsername(username),
+                        age,
+                        AgeBand.of(age).ordinal(),
+                        teamIds.get(teamDistribution.sample(random))});
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, rows.subList(i, Math.min(i + BATCH_SIZE, rows.size())));
+                }
+                entityChangePublisher.publishBulk(Member.class);
+            });
+        }
+
+        em.getEntityManagerFactory().getCache().evict(Member.class);
+        log.info("Generated {} in {}ms", spec, System.currentTimeMillis() - start);
+    }
+
+    private int age(DatasetSpec spec, Random random) {
+        long age = Math.round(spec.getAgeMean() + random.nextGaussian() * spec.getAgeStdDev());
+        return (int) Math.max(spec.getMinAge(), Math.min(spec.getMaxAge(), age));
+    }
+}
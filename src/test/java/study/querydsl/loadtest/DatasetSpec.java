@@ -0,0 +1,33 @@
+package study.querydsl.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * DatasetGenerator로 만들 데이터 모양
+ * 예) DatasetSpec.builder().teamCount(100).memberCount(1_000_000).teamSkew(1.2).build()
+ */
+@Getter
+@Builder
+@ToString
+public class DatasetSpec {
+
+    @Builder.Default private final int teamCount = 20;
+    @Builder.Default private final int memberCount = 10_000;
+    @Builder.Default private final double teamSkew = 1.0;         // 팀별 회원수 Zipf 지수 (0이면 팀마다 비슷하게)
+    @Builder.Default private final int minAge = 0;
+    @Builder.Default private final int maxAge = 99;
+    @Builder.Default private final double ageMean = 35;           // 정규분포로 뽑고 min~max로 자름
+    @Builder.Default private final double ageStdDev = 15;
+    @Builder.Default private final int usernameCardinality = 10_000; // 서로 다른 username 개수 (memberCount보다 작으면 중복됨)
+    @Builder.Default private final long seed = 42;
+
+    public String teamName(int index) {
+        return "team" + index;
+    }
+
+    public String username(int index) {
+        return "user" + index;
+    }
+}
@@ -0,0 +1,161 @@
+package study.querydsl.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * MemberController의 /v1, /v2, /v3 검색을 임의의 검색조건으로 섞어서 여러 스레드로 HTTP 요청하는 부하 드라이버
+ *
+ * 실제 요청 경로(톰캣, 인터셉터, 메시지 컨버터, 압축 설정)를 그대로 타도록 띄워둔 서버에 HTTP로 요청하고,
+ * 응답 본문을 끝까지 받을 때까지를 요청 1건으로 잰다. 2xx가 아닌 응답은 에러로 센다.
+ * 사용 예) LoadTestBenchmarkTest (@SpringBootTest(webEnvironment = RANDOM_PORT))
+ *
+ * 참고: 측정값은 스레드마다 따로 모았다가 끝나고 합친다. (측정 중에는 스레드끼리 공유하는 상태가 없음)
+ * 참고: If-None-Match를 안보내므로 매 요청이 실제로 조회된다. (304 응답 없음)
+ */
+@Slf4j
+public class LoadDriver {
+
+    private static final String[] ENDPOINTS = {"/v1/members", "/v2/members", "/v3/members"};
+
+    private final TestRestTemplate restTemplate;
+
+    public LoadDriver(TestRestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    public LoadReport run(DatasetSpec dataset, LoadSpec load) {
+        SearchConditionGenerator conditions = new SearchConditionGenerator(dataset, load);
+        ExecutorService executor = Executors.newFixedThreadPool(load.getThreads());
+        try {
+            List<Future<Worker>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            long deadline = start + load.getDurationMillis() * 1_000_000;
+            for (int i = 0; i < load.getThreads(); i++) {
+                Worker worker = new Worker(load, conditions, new Random(load.getSeed() + i));
+                futures.add(executor.submit(() -> worker.run(deadline)));
+            }
+
+            List<Worker> workers = new ArrayList<>();
+            for (Future<Worker> future : futures) {
+                workers.add(future.get());
+            }
+            LoadReport report = new LoadReport((System.nanoTime() - start) / 1_000_000);
+            for (int endpoint = 0; endpoint < ENDPOINTS.length; endpoint++) {
+                report.add(ENDPOINTS[endpoint], merge(workers, endpoint), errors(workers, endpoint));
+            }
+            log.info("Load test {}\n{}", load, report);
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Load test interrupted!", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load test failed!", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] merge(List<Worker> workers, int endpoint) {
+        int size = workers.stream().mapToInt(w -> w.counts[endpoint]).sum();
+        long[] merged = new long[size];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies[endpoint], 0, merged, offset, worker.counts[endpoint]);
+            offset += worker.counts[endpoint];
+        }
+        return merged;
+    }
+
+    private long errors(List<Worker> workers, int endpoint) {
+        return workers.stream().mapToLong(w -> w.errors[endpoint]).sum();
+    }
+
+    private class Worker {
+
+        private final LoadSpec load;
+        private final SearchConditionGenerator conditions;
+        private final Random random;
+        private final int totalWeight;
+
+        private final long[][] latencies = new long[ENDPOINTS.length][1024];
+        private final int[] counts = new int[ENDPOINTS.length];
+        private final long[] errors = new long[ENDPOINTS.length];
+
+        private Worker(LoadSpec load, SearchConditionGenerator conditions, Random random) {
+            this.load = load;
+            this.conditions = conditions;
+            this.random = random;
+            this.totalWeight = load.getV1Weight() + load.getV2Weight() + load.getV3Weight();
+        }
+
+        private Worker run(long deadline) {
+            for (int i = 0; i < load.getWarmupRequests(); i++) {
+                call(nextEndpoint(), conditions.next(random));
+            }
+            while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                int endpoint = nextEndpoint();
+                MemberSearchCondition condition = conditions.next(random);
+                long start = System.nanoTime();
+                try {
+                    call(endpoint, condition);
+                    record(endpoint, System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    errors[endpoint]++;
+                    log.debug("{} failed: {}", ENDPOINTS[endpoint], condition, e);
+                }
+            }
+            return this;
+        }
+
+        private int nextEndpoint() {
+            int pick = random.nextInt(totalWeight);
+            if (pick < load.getV1Weight()) {
+                return 0;
+            }
+            return pick < load.getV1Weight() + load.getV2Weight() ? 1 : 2;
+        }
+
+        private void call(int endpoint, MemberSearchCondition condition) {
+            UriComponentsBuilder uri = UriComponentsBuilder.fromPath(ENDPOINTS[endpoint]);
+            queryParam(uri, "username", condition.getUsername());
+            queryParam(uri, "teamName", condition.getTeamName());
+            queryParam(uri, "ageGoe", condition.getAgeGoe());
+            queryParam(uri, "ageLoe", condition.getAgeLoe());
+            if (endpoint != 0) {
+                uri.queryParam("page", random.nextInt(load.getMaxPage()))
+                        .queryParam("size", load.getPageSize());
+            }
+
+            ResponseEntity<byte[]> response = restTemplate.getForEntity(uri.build().toUriString(), byte[].class);
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new IllegalStateException(ENDPOINTS[endpoint] + " responded " + response.getStatusCode());
+            }
+        }
+
+        private void queryParam(UriComponentsBuilder uri, String name, Object value) {
+            if (value != null) {
+                uri.queryParam(name, value);
+            }
+        }
+
+        private void record(int endpoint, long nanos) {
+            if (counts[endpoint] == latencies[endpoint].length) {
+                latencies[endpoint] = Arrays.copyOf(latencies[endpoint], counts[endpoint] * 2);
+            }
+            latencies[endpoint][counts[endpoint]++] = nanos;
+        }
+    }
+}
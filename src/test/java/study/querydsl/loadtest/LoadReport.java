@@ -0,0 +1,83 @@
+package study.querydsl.loadtest;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LoadDriver 결과 (엔드포인트별 처리량, 지연시간 백분위)
+ */
+@Getter
+public class LoadReport {
+
+    private final long elapsedMillis;
+    private final Map<String, EndpointReport> endpoints = new LinkedHashMap<>();
+
+    public LoadReport(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    void add(String endpoint, long[] latencyNanos, long errors) {
+        endpoints.put(endpoint, new EndpointReport(endpoint, latencyNanos, errors, elapsedMillis));
+    }
+
+    public long getTotalRequests() {
+        return endpoints.values().stream().mapToLong(EndpointReport::getRequests).sum();
+    }
+
+    public double getThroughput() {
+        return elapsedMillis == 0 ? 0 : getTotalRequests() * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("total %d requests in %dms, %.1f req/s%n", getTotalRequests(), elapsedMillis, getThroughput()));
+        for (EndpointReport report : endpoints.values()) {
+            sb.append(report).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    @Getter
+    public static class EndpointReport {
+
+        private final String endpoint;
+        private final long requests;
+        private final long errors;
+        private final double throughput;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        EndpointReport(String endpoint, long[] latencyNanos, long errors, long elapsedMillis) {
+            long[] sorted = latencyNanos.clone();
+            Arrays.sort(sorted);
+            this.endpoint = endpoint;
+            this.requests = sorted.length;
+            this.errors = errors;
+            this.throughput = elapsedMillis == 0 ? 0 : sorted.length * 1000.0 / elapsedMillis;
+            this.p50Millis = percentile(sorted, 0.50);
+            this.p90Millis = percentile(sorted, 0.90);
+            this.p99Millis = percentile(sorted, 0.99);
+            this.maxMillis = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s requests=%d errors=%d %.1f req/s p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                    endpoint, requests, errors, throughput, p50Millis, p90Millis, p99Millis, maxMillis);
+        }
+    }
+}
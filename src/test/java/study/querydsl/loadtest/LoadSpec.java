@@ -0,0 +1,32 @@
+package study.querydsl.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * LoadDriver 실행 설정
+ * 엔드포인트 비율(v1Weight, v2Weight, v3Weight)과 검색조건에 각 필드가 들어갈 확률로 트래픽 모양을 정한다.
+ */
+@Getter
+@Builder
+@ToString
+public class LoadSpec {
+
+    @Builder.Default private final int threads = 4;
+    @Builder.Default private final long durationMillis = 10_000;
+    @Builder.Default private final int warmupRequests = 100;   // 스레드마다, 측정에서 제외
+
+    @Builder.Default private final int v1Weight = 2;           // /v1/members (전체 목록)
+    @Builder.Default private final int v2Weight = 3;           // /v2/members (searchPageSimple)
+    @Builder.Default private final int v3Weight = 5;           // /v3/members (searchPageComplex)
+    @Builder.Default private final int pageSize = 20;
+    @Builder.Default private final int maxPage = 5;
+
+    @Builder.Default private final double usernameRate = 0.1;
+    @Builder.Default private final double teamNameRate = 0.5;
+    @Builder.Default private final double ageGoeRate = 0.5;
+    @Builder.Default private final double ageLoeRate = 0.3;
+
+    @Builder.Default private final long seed = 7;
+}
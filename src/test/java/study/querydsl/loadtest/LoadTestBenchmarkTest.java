@@ -0,0 +1,64 @@
+package study.querydsl.loadtest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 운영 규모/쏠림이 있는 데이터에서 /v1, /v2, /v3 검색을 섞어서 HTTP로 부하를 주고 처리량과 p50/p90/p99를 출력
+ *
+ * 실행: ./gradlew benchmark
+ * 참고: 실제 요청 경로를 재려고 랜덤 포트로 서버를 띄워서 TestRestTemplate으로 요청한다. (LoadDriver 참고)
+ * 참고: DatasetGenerator가 청크마다 커밋하므로 @Transactional 없이 실행하고 끝나면 직접 지운다.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadTestBenchmarkTest {
+
+    @Autowired TestRestTemplate restTemplate;
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityChangePublisher entityChangePublisher;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void clear() {
+        memberRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Team").executeUpdate());
+    }
+
+    @Test
+    void mixedSearchLoad() {
+        DatasetSpec dataset = DatasetSpec.builder()
+                .teamCount(50)
+                .memberCount(200_000)
+                .teamSkew(1.2)
+                .usernameCardinality(50_000)
+                .build();
+        new DatasetGenerator(em, jdbcTemplate, transactionManager, entityChangePublisher).generate(dataset);
+        assertThat(memberRepository.count()).isEqualTo(dataset.getMemberCount());
+
+        LoadReport report = new LoadDriver(restTemplate).run(dataset, LoadSpec.builder()
+                .threads(8)
+                .durationMillis(20_000)
+                .build());
+
+        System.out.println(report);
+        assertThat(report.getTotalRequests()).isPositive();
+        assertThat(report.getEndpoints().values()).allMatch(endpoint -> endpoint.getErrors() == 0);
+    }
+}
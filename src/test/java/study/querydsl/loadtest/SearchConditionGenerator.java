@@ -0,0 +1,41 @@
+package study.querydsl.loadtest;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.Random;
+
+/**
+ * 데이터셋 모양(DatasetSpec)에 맞는 임의의 MemberSearchCondition
+ * 팀 이름도 데이터와 같은 Zipf 분포로 뽑아서 인기 팀 검색이 더 자주 나오게 한다.
+ */
+public class SearchConditionGenerator {
+
+    private final DatasetSpec dataset;
+    private final LoadSpec load;
+    private final ZipfDistribution teamDistribution;
+
+    public SearchConditionGenerator(DatasetSpec dataset, LoadSpec load) {
+        this.dataset = dataset;
+        this.load = load;
+        this.teamDistribution = new ZipfDistribution(dataset.getTeamCount(), dataset.getTeamSkew());
+    }
+
+    public MemberSearchCondition next(Random random) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if (random.nextDouble() < load.getUsernameRate()) {
+            condition.setUsername(dataset.username(random.nextInt(dataset.getUsernameCardinality())));
+        }
+        if (random.nextDouble() < load.getTeamNameRate()) {
+            condition.setTeamName(dataset.teamName(teamDistribution.sample(random)));
+        }
+        int ageRange = dataset.getMaxAge() - dataset.getMinAge() + 1;
+        if (random.nextDouble() < load.getAgeGoeRate()) {
+            condition.setAgeGoe(dataset.getMinAge() + random.nextInt(ageRange));
+        }
+        if (random.nextDouble() < load.getAgeLoeRate()) {
+            int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : dataset.getMinAge();
+            condition.setAgeLoe(from + random.nextInt(Math.max(1, dataset.getMaxAge() - from + 1)));
+        }
+        return condition;
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.loadtest;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 1 ~ n 순위 중에서 순위 k가 1/k^exponent 비율로 뽑히는 분포
+ * exponent가 클수록 앞 순위(인기 팀)에 몰린다. 0이면 균등분포.
+ */
+public class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        Assert.isTrue(n > 0, "n must be positive!");
+        Assert.isTrue(exponent >= 0, "exponent must not be negative!");
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    // 0부터 시작하는 순위 (0이 가장 많이 뽑힘)
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class PersistenceContextMonitorTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired PersistenceContextMonitor persistenceContextMonitor;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    void after() {
+        persistenceContextMonitor.end("test");
+    }
+
+    @Test
+    void loadAndInitialize() {
+        PersistenceContextStats stats = persistenceContextMonitor.begin();
+
+        List<Member> members = memberJpaRepository.findAll();
+        members.get(0).getTeam().getMembers().size(); // 팀 프록시 + 컬렉션 초기화
+
+        assertThat(stats.getEntitiesLoaded()).isEqualTo(3); // 회원 2 + 팀 1
+        assertThat(stats.getCollectionsInitialized()).isEqualTo(1);
+        assertThat(stats.getPeakManagedEntities()).isEqualTo(3);
+        assertThat(stats.getAutoFlushes()).isZero();
+    }
+
+    @Test
+    void autoFlush() {
+        PersistenceContextStats stats = persistenceContextMonitor.begin();
+
+        em.persist(new Member("member3", 30));
+        memberJpaRepository.findAll(); // 회원 테이블 조회 전에 자동 flush
+
+        em.flush();
+
+        assertThat(stats.getAutoFlushes()).isEqualTo(1);
+        assertThat(stats.getFlushes()).isEqualTo(1);
+    }
+
+    // begin() 안한 스레드에서는 기록하지 않는다
+    @Test
+    void notStarted() {
+        memberJpaRepository.findAll();
+
+        assertThat(persistenceContextMonitor.current()).isNull();
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired EntityManager em;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+    }
+
+    @Test
+    void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        // 같은 컨텍스트를 쓰는 다른 테스트에서도 기록될 수 있으니 호출 전후 차이로 비교
+        double rowsBefore = total(RepositoryMetricsAspect.ROWS_SUMMARY);
+        double statementsBefore = total(RepositoryMetricsAspect.STATEMENTS_SUMMARY);
+
+        memberJpaRepository.search(condition);
+
+        Timer timer = meterRegistry.find(RepositoryMetricsAspect.QUERY_TIMER)
+                .tags("repository", "MemberJpaRepository", "method", "search", "shape", "teamName+ageGoe")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(total(RepositoryMetricsAspect.ROWS_SUMMARY) - rowsBefore).isEqualTo(2);
+        // flush(insert) + select
+        assertThat(total(RepositoryMetricsAspect.STATEMENTS_SUMMARY) - statementsBefore).isGreaterThanOrEqualTo(1);
+    }
+
+    private double total(String name) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tags("repository", "MemberJpaRepository", "method", "search", "shape", "teamName+ageGoe")
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    // 커스텀 구현(MemberRepositoryImpl)도 잡히고, 페이징 여부가 shape에 들어간다
+    @Test
+    void searchPage() {
+        memberRepository.searchPageSimple(new MemberSearchCondition(), PageRequest.of(0, 2));
+
+        Timer timer = meterRegistry.find(RepositoryMetricsAspect.QUERY_TIMER)
+                .tags("repository", "MemberRepositoryImpl", "method", "searchPageSimple", "shape", "none/paged")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+    }
+}
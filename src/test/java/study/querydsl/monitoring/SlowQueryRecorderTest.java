@@ -0,0 +1,58 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 임계값 0 -> 모든 SQL이 느린 쿼리로 기록된다
+@SpringBootTest(properties = "querydsl.slow-query.threshold-millis=0")
+@Transactional
+class SlowQueryRecorderTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired SlowQueryRecorder slowQueryRecorder;
+
+    @BeforeEach
+    void before() {
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.flush();
+        slowQueryRecorder.clear();
+    }
+
+    @Test
+    void record() throws InterruptedException {
+        memberJpaRepository.findByUsername_Querydsl("member1");
+
+        List<SlowQuery> recent = slowQueryRecorder.recent();
+        assertThat(recent).isNotEmpty();
+
+        SlowQuery slowQuery = recent.get(0);
+        assertThat(slowQuery.getSql()).contains("?");
+        assertThat(slowQuery.getBoundSql()).contains("'member1'");
+        assertThat(slowQuery.getRows()).isEqualTo(1);
+
+        // EXPLAIN은 다른 스레드에서 실행되니 잠깐 기다린다
+        for (int i = 0; i < 50 && slowQuery.getPlan() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(slowQuery.getPlan()).isNotBlank().doesNotStartWith("EXPLAIN failed");
+    }
+
+    @Test
+    void update() {
+        em.createQuery("update Member m set m.age = m.age + 1").executeUpdate();
+
+        assertThat(slowQueryRecorder.recent().get(0).getRows()).isEqualTo(2);
+    }
+}
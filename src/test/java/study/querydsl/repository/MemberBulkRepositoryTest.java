@@ -0,0 +1,153 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberUpsertDto;
+import study.querydsl.dto.UpsertResult;
+import study.querydsl.entity.AgeBand;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkChunkOption;
+import study.querydsl.repository.support.BulkProgress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+
+// 청크마다 커밋하는 벌크 연산이라 @Transactional 없이 테스트하고, 끝나면 직접 데이터를 지워준다.
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberBulkRepository memberBulkRepository;
+
+    @AfterEach
+    void clear() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void chunkedUpdate() {
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("member" + i, i));
+        }
+
+        List<BulkProgress> progresses = new ArrayList<>();
+        long count = memberBulkRepository.update(
+                member.age.lt(5),
+                clause -> clause.set(member.age, member.age.add(100)),
+                BulkChunkOption.of(3).onProgress(progresses::add));
+
+        assertThat(count).isEqualTo(5);
+        assertThat(progresses).hasSize(2);
+        assertThat(progresses.get(1).getTotalAffectedRows()).isEqualTo(5);
+        assertThat(memberRepository.findAll()).extracting("age")
+                .containsExactlyInAnyOrder(100, 101, 102, 103, 104, 5, 6, 7, 8, 9);
+        // 벌크 update로 나이가 바뀐 회원도 age_band가 같이 바뀌어야 한다
+        assertThat(memberRepository.findAll())
+                .allSatisfy(m -> assertThat(m.getAgeBand()).isEqualTo(AgeBand.of(m.getAge())));
+    }
+
+    @Test
+    void chunkedDelete() {
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("member" + i, i));
+        }
+
+        long count = memberBulkRepository.delete(member.age.goe(3), BulkChunkOption.of(4).throttle(1));
+
+        assertThat(count).isEqualTo(7);
+        assertThat(memberRepository.findAll()).extracting("username")
+                .containsExactlyInAnyOrder("member0", "member1", "member2");
+    }
+
+    @Test
+    void upsert() {
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 20));
+
+        UpsertResult result = memberBulkRepository.upsert(Stream.of(
+                new MemberUpsertDto("member1", 11, null),
+                new MemberUpsertDto("member3", 30, null),
+                new MemberUpsertDto("member4", 40, null),
+                new MemberUpsertDto("member4", 41, null)
+        ), 2);
+
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(memberRepository.findAll()).extracting("username", "age")
+                .containsExactlyInAnyOrder(
+                        tuple("member1", 11),
+                        tuple("member2", 20),
+                        tuple("member3", 30),
+                        tuple("member4", 41));
+        assertThat(memberRepository.findAll())
+                .allSatisfy(m -> assertThat(m.getAgeBand()).isEqualTo(AgeBand.of(m.getAge())));
+    }
+
+    // 바깥 트랜잭션 없이 기본 배치 크기 오버로드를 호출해도 자체 트랜잭션에서 실행
+    @Test
+    void upsertDefaultBatchSize() {
+        memberRepository.save(new Member("member1", 10));
+
+        UpsertResult result = memberBulkRepository.upsert(Stream.of(
+                new MemberUpsertDto("member1", 11, null),
+                new MemberUpsertDto("member2", 20, null)
+        ));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(memberRepository.findAll()).extracting("username", "age")
+                .containsExactlyInAnyOrder(
+                        tuple("member1", 11),
+                        tuple("member2", 20));
+    }
+
+    // DB에 같은 username 회원이 여러 명이면 어느 회원인지 정할 수 없으니 MERGE 하지 않고 예외 (앞 배치도 롤백)
+    @Test
+    void upsertAmbiguousUsername() {
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("dup", 20));
+        memberRepository.save(new Member("dup", 30));
+
+        assertThatThrownBy(() -> memberBulkRepository.upsert(Stream.of(
+                new MemberUpsertDto("member1", 11, null),
+                new MemberUpsertDto("dup", 40, null)
+        ), 1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("dup");
+
+        assertThat(memberRepository.findAll()).extracting("username", "age")
+                .containsExactlyInAnyOrder(
+                        tuple("member1", 10),
+                        tuple("dup", 20),
+                        tuple("dup", 30));
+    }
+
+    // 벌크 update로 username을 바꾸면 username_normalized도 같이 바뀌어야 한다
+    @Test
+    void chunkedUpdateUsername() {
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("member" + i, i));
+        }
+
+        memberBulkRepository.update(
+                member.age.lt(3),
+                clause -> clause.set(member.username, member.username.upper()),
+                BulkChunkOption.of(2));
+
+        assertThat(memberRepository.findAll()).extracting("username", "usernameNormalized")
+                .containsExactlyInAnyOrder(
+                        tuple("MEMBER0", "member0"),
+                        tuple("MEMBER1", "member1"),
+                        tuple("MEMBER2", "member2"),
+                        tuple("member3", "member3"),
+                        tuple("member4", "member4"));
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+
+/**
+ * MemberJpaRepository.save()를 반복 호출할 때 id 생성 전략에 따른 insert 처리량 비교
+ * - SequencePerInsert: increment_size 1 -> insert 마다 시퀀스 호출
+ * - PooledLo: increment_size 50 -> 시퀀스 호출 50번에 1번, insert는 JDBC 배치로 전송
+ *
+ * 실행: ./gradlew benchmark
+ */
+@Tag("benchmark")
+abstract class MemberInsertBenchmarkTest {
+
+    static final int WARM_UP = 2_000;
+    static final int COUNT = 20_000;
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void saveInLoop() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        insert(tx, WARM_UP);
+
+        long start = System.nanoTime();
+        insert(tx, COUNT);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("[%s] %d inserts in %d ms (%.0f inserts/sec)%n",
+                getClass().getSimpleName(), COUNT, elapsedMillis, COUNT * 1000.0 / Math.max(elapsedMillis, 1));
+    }
+
+    private void insert(TransactionTemplate tx, int count) {
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                memberJpaRepository.save(new Member("bench" + i, i % 100));
+                if ((i + 1) % 100 == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            status.setRollbackOnly();
+        });
+    }
+
+    @SpringBootTest(properties = "spring.jpa.properties.querydsl.id.increment_size=1")
+    static class SequencePerInsert extends MemberInsertBenchmarkTest {
+    }
+
+    @SpringBootTest(properties = "spring.jpa.properties.querydsl.id.increment_size=50")
+    static class PooledLo extends MemberInsertBenchmarkTest {
+    }
+}
@@ -109,4 +109,21 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void searchIgnoreCase() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("Member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("MEMBER1");
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+
+        condition.setUsernameIgnoreCase(true);
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("Member1");
+        assertThat(memberJpaRepository.searchByBuilder(condition)).extracting("username").containsExactly("Member1");
+    }
+}
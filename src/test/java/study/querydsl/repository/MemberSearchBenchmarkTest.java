@@ -0,0 +1,85 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 결과가 많은 MemberTeamDto 검색 비교
+ * - querydsl: MemberJpaRepository.search (select(new QMemberTeamDto(...)))
+ * - jdbc: MemberSearchJdbcRepository.search (SQL + MemberTeamDtoRowMapper)
+ *
+ * 실행: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class MemberSearchBenchmarkTest {
+
+    static final int MEMBER_COUNT = 50_000;
+    static final int ROUNDS = 20;
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberSearchJdbcRepository memberSearchJdbcRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+            if ((i + 1) % 1000 == 0) {
+                em.flush();
+                em.clear();
+                teamA = em.find(Team.class, teamA.getId());
+                teamB = em.find(Team.class, teamB.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void searchLargeResult() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        List<MemberTeamDto> querydsl = memberJpaRepository.search(condition);
+        List<MemberTeamDto> jdbc = memberSearchJdbcRepository.search(condition);
+        assertThat(jdbc).containsExactlyInAnyOrderElementsOf(querydsl);
+
+        measure("querydsl", () -> memberJpaRepository.search(condition));
+        measure("jdbc", () -> memberSearchJdbcRepository.search(condition));
+    }
+
+    private void measure(String name, Supplier<List<MemberTeamDto>> search) {
+        for (int i = 0; i < 3; i++) {
+            search.get(); // warm-up
+        }
+
+        long start = System.nanoTime();
+        int rows = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            rows = search.get().size();
+            em.clear();
+        }
+        long avgMillis = (System.nanoTime() - start) / ROUNDS / 1_000_000;
+        System.out.printf("[%s] %d rows, avg %d ms%n", name, rows, avgMillis);
+    }
+}
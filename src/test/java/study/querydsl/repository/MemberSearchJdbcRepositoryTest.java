@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// JDBC 빠른 경로가 Querydsl 검색(MemberJpaRepository.search)과 같은 결과를 내는지 조건 조합별로 비교
+@SpringBootTest
+@Transactional
+class MemberSearchJdbcRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberSearchJdbcRepository memberSearchJdbcRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("Member2", 20, teamB));
+        // 팀 없는 회원 (left join 결과의 teamId, teamName이 null)
+        em.persist(new Member("member2", 25));
+        em.persist(new Member("mem_ber", 35));
+
+        em.flush();
+        em.clear();
+    }
+
+    // username, teamName, ageGoe, ageLoe 가 있고/없고의 16가지 조합
+    @Test
+    void sameAsQuerydsl_allShapes() {
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = MemberSearchCondition.builder()
+                    .username((shape & 1) != 0 ? "member2" : null)
+                    .teamName((shape & 2) != 0 ? "teamA" : null)
+                    .ageGoe((shape & 4) != 0 ? 15 : null)
+                    .ageLoe((shape & 8) != 0 ? 35 : null)
+                    .build();
+
+            assertSame(condition);
+        }
+    }
+
+    @Test
+    void sameAsQuerydsl_otherConditions() {
+        List<MemberSearchCondition> conditions = Arrays.asList(
+                MemberSearchCondition.builder().username("MEMBER2").usernameIgnoreCase(true).build(),
+                MemberSearchCondition.builder().username("MEMBER2").usernameIgnoreCase(true).teamName("teamB").build(),
+                MemberSearchCondition.builder().usernamePrefix("mem").ageLoe(30).build(),
+                MemberSearchCondition.builder().usernameContains("_").build(),
+                MemberSearchCondition.builder().usernamePrefix("Mem").usernameContains("2").build(),
+                MemberSearchCondition.builder().teamName("teamC").build(),
+                MemberSearchCondition.builder().username("").teamName("").build(),
+                MemberSearchCondition.builder().ageGoe(30).ageLoe(20).build()
+        );
+
+        for (MemberSearchCondition condition : conditions) {
+            assertSame(condition);
+        }
+    }
+
+    // 팀 없는 회원도 같은 DTO로 (teamId, teamName null)
+    @Test
+    void nullTeam() {
+        MemberSearchCondition condition = MemberSearchCondition.builder().ageGoe(25).ageLoe(25).build();
+
+        List<MemberTeamDto> result = memberSearchJdbcRepository.search(condition);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getTeamId()).isNull();
+        assertThat(result.get(0).getTeamName()).isNull();
+        assertThat(result).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+    }
+
+    private void assertSame(MemberSearchCondition condition) {
+        List<MemberTeamDto> querydsl = memberJpaRepository.search(condition);
+        List<MemberTeamDto> jdbc = memberSearchJdbcRepository.search(condition);
+
+        assertThat(jdbc).as(condition.toString()).containsExactlyInAnyOrderElementsOf(querydsl);
+    }
+}
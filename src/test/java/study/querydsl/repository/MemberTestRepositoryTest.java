@@ -0,0 +1,72 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.SqlStatementCounter;
+import study.querydsl.repository.snapshot.MemberColumnarSnapshot;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 스냅샷은 커밋된 변경만 반영하므로 @Transactional 없이 테스트하고, 끝나면 직접 데이터를 지워준다.
+@SpringBootTest(properties = "querydsl.snapshot.enabled=true")
+class MemberTestRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberTestRepository memberTestRepository;
+    @Autowired MemberColumnarSnapshot memberSnapshot;
+    @Autowired SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    void before() {
+        memberSnapshot.invalidate();
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 40, teamA));
+        });
+    }
+
+    @AfterEach
+    void clear() {
+        memberRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Team").executeUpdate());
+        memberSnapshot.invalidate();
+    }
+
+    // QuerydslBasicTest.subQuery 와 같은 결과, max(age)는 스냅샷에서 구하고 DB에는 age = ? 쿼리 하나만
+    @Test
+    void findOldestFromSnapshot() {
+        assertThat(memberTestRepository.findOldest()).extracting("username").containsExactly("member3");
+
+        long before = sqlStatementCounter.current();
+        assertThat(memberTestRepository.findOldest()).extracting("username").containsExactly("member3");
+        assertThat(sqlStatementCounter.current() - before).isEqualTo(1);
+    }
+
+    // 현재 트랜잭션에 커밋 안된 회원 변경이 있으면 스냅샷 대신 DB 서브쿼리로 (방금 넣은 회원도 보임)
+    @Test
+    void findOldestWithUncommittedChanges() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member4", 50));
+            em.flush();
+
+            List<Member> result = memberTestRepository.findOldest();
+
+            assertThat(result).extracting("username").containsExactly("member4");
+            status.setRollbackOnly();
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.InvalidSortException;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired TeamQueryRepository teamQueryRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50, teamC));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findTeamsWithMembers() {
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "name"));
+
+        Page<TeamMembersDto> result = teamQueryRepository.findTeamsWithMembers(pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamC", "teamB");
+        assertThat(result.getContent().get(0).getMembers()).extracting("username").containsExactly("member5");
+        assertThat(result.getContent().get(1).getMembers()).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    void findTeamsWithMembers_emptyTeam() {
+        em.persist(new Team("teamD"));
+
+        Page<TeamMembersDto> result = teamQueryRepository.findTeamsWithMembers(PageRequest.of(1, 3));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamD");
+        assertThat(result.getContent().get(0).getMembers()).isEmpty();
+    }
+
+    // 팀 정렬도 허용한 정렬키(id, name)만
+    @Test
+    void findTeamsWithMembers_invalidSort() {
+        assertThatThrownBy(() -> teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 2, Sort.by("members"))))
+                .isInstanceOf(InvalidSortException.class);
+    }
+}
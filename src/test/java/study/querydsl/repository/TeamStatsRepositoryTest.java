@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class TeamStatsRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired TeamStatsRepository teamStatsRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+
+    @BeforeEach
+    void before() {
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    // QuerydslBasicTest.group 과 같은 결과
+    @Test
+    void group() {
+        List<TeamStatsDto> result = teamStatsRepository.findAll();
+
+        assertThat(result).extracting("teamName", "memberCount", "ageAvg")
+                .containsExactly(
+                        tuple("teamA", 2L, 15.0),
+                        tuple("teamB", 2L, 35.0));
+    }
+
+    // QuerydslBasicTest.aggregation 과 같은 결과
+    @Test
+    void aggregation() {
+        TeamStatsDto total = teamStatsRepository.total();
+
+        assertThat(total.getMemberCount()).isEqualTo(4);
+        assertThat(total.getAgeSum()).isEqualTo(100);
+        assertThat(total.getAgeAvg()).isEqualTo(25);
+        assertThat(total.getAgeMax()).isEqualTo(40);
+        assertThat(total.getAgeMin()).isEqualTo(10);
+    }
+
+    @Test
+    void updateAndDelete() {
+        em.flush();
+
+        // 최소 나이 회원을 다른 팀으로 옮기면 teamA 최소값은 재계산 되어야 함
+        member1.setTeam(teamB);
+        member1.setAge(50);
+        em.flush();
+
+        List<TeamStatsDto> result = teamStatsRepository.findAll();
+        assertThat(result).extracting("teamName", "memberCount", "ageMin", "ageMax")
+                .containsExactly(
+                        tuple("teamA", 1L, 20, 20),
+                        tuple("teamB", 3L, 30, 50));
+
+        em.remove(member1);
+        em.flush();
+
+        assertThat(teamStatsRepository.findAll()).extracting("teamName", "memberCount", "ageSum")
+                .containsExactly(
+                        tuple("teamA", 1L, 20L),
+                        tuple("teamB", 2L, 70L));
+    }
+
+    // 통계 행이 없는 팀에 회원이 들어오면 MERGE 로 첫 회원 행이 생기고, 그 뒤 팀 insert 이벤트가 와도 덮어쓰지 않음
+    @Test
+    void firstMemberWithoutRow() {
+        Team teamC = new Team("teamC");
+        em.persist(teamC);
+        em.flush();
+        jdbcTemplate.update("delete from team_stats where team_id = ?", teamC.getId());
+
+        em.persist(new Member("member5", 50, teamC));
+        em.flush();
+
+        assertThat(jdbcTemplate.queryForMap(
+                "select member_count, age_sum, age_min, age_max from team_stats where team_id = ?", teamC.getId()))
+                .containsEntry("MEMBER_COUNT", 1L)
+                .containsEntry("AGE_SUM", 50L)
+                .containsEntry("AGE_MIN", 50)
+                .containsEntry("AGE_MAX", 50);
+
+        em.persist(new Member("member6", 60, teamC));
+        em.flush();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from team_stats where team_id = ?", Long.class, teamC.getId())).isEqualTo(1L);
+        assertThat(teamStatsRepository.findAll()).extracting("teamName", "memberCount", "ageMin", "ageMax")
+                .contains(tuple("teamC", 2L, 50, 60));
+    }
+}
@@ -0,0 +1,125 @@
+package study.querydsl.repository.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.SqlStatementCounter;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchJdbcRepository;
+import study.querydsl.repository.search.MemberSearchConditionAnalyzer.Analysis;
+import study.querydsl.repository.search.MemberSearchConditionAnalyzer.Reason;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchConditionAnalyzerTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberSearchConditionAnalyzer analyzer;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberSearchJdbcRepository memberSearchJdbcRepository;
+    @Autowired SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void unsatisfiable() {
+        assertReason(MemberSearchCondition.builder().ageGoe(50).ageLoe(10).build(), Reason.INVERTED_AGE_RANGE);
+        assertReason(MemberSearchCondition.builder().username("member1").usernamePrefix("abc").build(),
+                Reason.USERNAME_PREFIX_MISMATCH);
+        assertReason(MemberSearchCondition.builder().username("member1").usernameContains("xyz").build(),
+                Reason.USERNAME_CONTAINS_MISMATCH);
+    }
+
+    @Test
+    void simplified() {
+        MemberSearchCondition condition = MemberSearchCondition.builder()
+                .username("member1")
+                .usernamePrefix("mem")
+                .usernameContains("ber1")
+                .ageGoe(Integer.MIN_VALUE)
+                .ageLoe(Integer.MAX_VALUE)
+                .build();
+
+        Analysis analysis = analyzer.analyze(condition);
+
+        assertThat(analysis.isUnsatisfiable()).isFalse();
+        assertThat(analysis.getCondition()).isEqualTo(MemberSearchCondition.builder().username("member1").build());
+        assertThat(condition.getUsernamePrefix()).isEqualTo("mem"); // 원래 조건은 그대로
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("member1");
+    }
+
+    // 뺄 조건이 없으면 검색조건을 복사하지 않음
+    @Test
+    void nothingToSimplify() {
+        MemberSearchCondition condition = MemberSearchCondition.builder().username("member1").teamName("teamA").ageGoe(10).ageLoe(20).build();
+
+        assertThat(analyzer.analyze(condition).getCondition()).isSameAs(condition);
+        assertThat(analyzer.analyze(MemberSearchCondition.builder().ageGoe(Integer.MIN_VALUE).build()).getCondition().getAgeGoe()).isNull();
+    }
+
+    // 음수 나이도 저장될 수 있으니 ageGoe=0, ageLoe=-1 은 빼거나 빈 결과로 끝내지 않고 그대로 조회
+    @Test
+    void negativeAge() {
+        em.persist(new Member("member3", -5, null));
+        em.flush();
+
+        MemberSearchCondition goe = MemberSearchCondition.builder().ageGoe(0).build();
+        assertThat(analyzer.analyze(goe).getCondition()).isSameAs(goe);
+        assertThat(memberJpaRepository.search(goe)).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+
+        MemberSearchCondition loe = MemberSearchCondition.builder().ageLoe(-1).build();
+        assertThat(analyzer.analyze(loe).isUnsatisfiable()).isFalse();
+        assertThat(memberJpaRepository.search(loe)).extracting("username").containsExactly("member3");
+    }
+
+    // 대소문자 무시 검색이면 회원명 비교 규칙은 적용하지 않음
+    @Test
+    void ignoreCaseNotAnalyzed() {
+        MemberSearchCondition condition = MemberSearchCondition.builder()
+                .username("MEMBER1")
+                .usernameIgnoreCase(true)
+                .usernamePrefix("mem")
+                .build();
+
+        assertThat(analyzer.analyze(condition).isUnsatisfiable()).isFalse();
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("member1");
+    }
+
+    private void assertReason(MemberSearchCondition condition, Reason reason) {
+        long count = analyzer.getUnsatisfiable(reason);
+        assertThat(analyzer.analyze(condition).getReason()).isEqualTo(reason);
+
+        long before = sqlStatementCounter.current();
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+        assertThat(memberSearchJdbcRepository.search(condition)).isEmpty();
+        assertThat(sqlStatementCounter.current()).isEqualTo(before);
+
+        assertThat(analyzer.getUnsatisfiable(reason)).isEqualTo(count + 4);
+    }
+}
@@ -0,0 +1,173 @@
+package study.querydsl.repository.search;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * where 조건 조합 방식 비교
+ * - builder: BooleanBuilder에 조건을 하나씩 and
+ * - whereParam: null을 허용하는 BooleanExpression 메서드를 where(...)에 나열
+ * - predicates: MemberSearchPredicates (미리 만든 조각 + Param 바인딩, between 합치기)
+ *
+ * compose: 조건 조합 + JPQL 직렬화만 (DB 없이) / search: 실제 조회까지
+ * 실행: ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class MemberSearchPredicatesBenchmarkTest {
+
+    static final int MEMBER_COUNT = 20_000;
+    static final int COMPOSE_ROUNDS = 200_000;
+    static final int SEARCH_ROUNDS = 200;
+
+    static final MemberSearchCondition[] CONDITIONS = {
+            MemberSearchCondition.builder().username("member7").build(),
+            MemberSearchCondition.builder().teamName("teamA").ageGoe(30).ageLoe(40).build(),
+            MemberSearchCondition.builder().ageGoe(90).build(),
+            MemberSearchCondition.builder().username("MEMBER11").usernameIgnoreCase(true).teamName("teamB").build(),
+    };
+
+    @Autowired EntityManager em;
+    @Autowired MemberSearchPredicates memberSearchPredicates;
+    @Autowired MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+            if ((i + 1) % 1000 == 0) {
+                em.flush();
+                em.clear();
+                teamA = em.find(Team.class, teamA.getId());
+                teamB = em.find(Team.class, teamB.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void compose() {
+        measureCompose("builder", c -> new JPAQuery<Member>().select(member).from(member).leftJoin(member.team, team).where(builder(c)));
+        measureCompose("whereParam", c -> new JPAQuery<Member>().select(member).from(member).leftJoin(member.team, team).where(
+                usernameEq(c.getUsername(), c.getUsernameIgnoreCase()),
+                teamNameEq(c.getTeamName()),
+                ageGoe(c.getAgeGoe()),
+                ageLoe(c.getAgeLoe())));
+        measureCompose("predicates", c -> memberSearchPredicates.compose(c)
+                .applyTo(new JPAQuery<Member>().select(member).from(member).leftJoin(member.team, team)));
+    }
+
+    @Test
+    void search() {
+        for (MemberSearchCondition condition : CONDITIONS) {
+            assertThat(memberJpaRepository.search(condition))
+                    .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByBuilder(condition));
+        }
+
+        measureSearch("builder", () -> run(memberJpaRepository::searchByBuilder));
+        measureSearch("predicates", () -> run(memberJpaRepository::search));
+    }
+
+    private int run(Function<MemberSearchCondition, List<MemberTeamDto>> search) {
+        int rows = 0;
+        for (MemberSearchCondition condition : CONDITIONS) {
+            rows += search.apply(condition).size();
+        }
+        return rows;
+    }
+
+    private void measureCompose(String name, Function<MemberSearchCondition, JPAQuery<Member>> compose) {
+        int length = 0;
+        for (int i = 0; i < COMPOSE_ROUNDS / 10; i++) {
+            length += compose.apply(CONDITIONS[i % CONDITIONS.length]).toString().length(); // warm-up
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < COMPOSE_ROUNDS; i++) {
+            length += compose.apply(CONDITIONS[i % CONDITIONS.length]).toString().length();
+        }
+        long avgNanos = (System.nanoTime() - start) / COMPOSE_ROUNDS;
+        System.out.printf("[compose %s] avg %d ns (%d)%n", name, avgNanos, length);
+    }
+
+    private void measureSearch(String name, Supplier<Integer> search) {
+        for (int i = 0; i < 10; i++) {
+            search.get(); // warm-up
+        }
+
+        long start = System.nanoTime();
+        int rows = 0;
+        for (int i = 0; i < SEARCH_ROUNDS; i++) {
+            rows = search.get();
+            em.clear();
+        }
+        long avgMicros = (System.nanoTime() - start) / SEARCH_ROUNDS / 1_000;
+        System.out.printf("[search %s] %d rows, avg %d us%n", name, rows, avgMicros);
+    }
+
+    private static BooleanBuilder builder(MemberSearchCondition c) {
+        BooleanBuilder builder = new BooleanBuilder();
+        if (hasText(c.getUsername())) {
+            builder.and(usernameEq(c.getUsername(), c.getUsernameIgnoreCase()));
+        }
+        if (hasText(c.getTeamName())) {
+            builder.and(team.name.eq(c.getTeamName()));
+        }
+        if (c.getAgeGoe() != null) {
+            builder.and(member.age.goe(c.getAgeGoe()));
+        }
+        if (c.getAgeLoe() != null) {
+            builder.and(member.age.loe(c.getAgeLoe()));
+        }
+        return builder;
+    }
+
+    private static BooleanExpression usernameEq(String username, Boolean ignoreCase) {
+        if (!hasText(username)) {
+            return null;
+        }
+        return Boolean.TRUE.equals(ignoreCase)
+                ? member.usernameNormalized.eq(Member.normalizeUsername(username))
+                : member.username.eq(username);
+    }
+
+    private static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.repository.search;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.SqlStatementCounter;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberSearchPredicatesTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberSearchPredicates memberSearchPredicates;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberTestRepository memberTestRepository;
+    @Autowired SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("Member4", 40, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void between() {
+        MemberSearchCondition condition = MemberSearchCondition.builder().ageGoe(20).ageLoe(30).build();
+
+        assertThat(jpql(condition)).contains("between").doesNotContain(">=");
+        assertThat(memberJpaRepository.searchMember(condition)).extracting("username")
+                .containsExactlyInAnyOrder("member2", "member3");
+    }
+
+    @Test
+    void alwaysTrueDropped() {
+        MemberSearchCondition condition = MemberSearchCondition.builder()
+                .username("")
+                .ageGoe(Integer.MIN_VALUE)
+                .ageLoe(Integer.MAX_VALUE)
+                .usernameIgnoreCase(true)
+                .build();
+
+        assertThat(jpql(condition)).doesNotContain("where");
+        assertThat(memberJpaRepository.search(condition)).hasSize(4);
+    }
+
+    // 미리 만든 조건 조각을 여러 번 써도 값은 쿼리마다 따로 바인딩됨
+    @Test
+    void fragmentsReused() {
+        MemberSearchCondition teamA = MemberSearchCondition.builder().teamName("teamA").ageGoe(15).build();
+        MemberSearchCondition teamB = MemberSearchCondition.builder().teamName("teamB").ageLoe(35).build();
+        MemberSearchCondition ignoreCase = MemberSearchCondition.builder().username("MEMBER4").usernameIgnoreCase(true).build();
+
+        assertThat(memberJpaRepository.search(teamA)).extracting("username").containsExactly("member2");
+        assertThat(memberJpaRepository.search(teamB)).extracting("username").containsExactly("member3");
+        assertThat(memberJpaRepository.search(ignoreCase)).extracting("username").containsExactly("Member4");
+        assertThat(memberJpaRepository.search(teamA))
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByBuilder(teamA));
+    }
+
+    @Test
+    void conflictingRangeNotQueried() {
+        MemberSearchCondition condition = MemberSearchCondition.builder().ageGoe(50).ageLoe(10).build();
+        assertThat(memberSearchPredicates.compose(condition).isEmptyResult()).isTrue();
+
+        long before = sqlStatementCounter.current();
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+        Page<?> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 10));
+        Page<Member> testPage = memberTestRepository.applyPagination(condition, PageRequest.of(0, 10));
+
+        assertThat(sqlStatementCounter.current()).isEqualTo(before);
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+        assertThat(page.getNumber()).isEqualTo(1);
+        assertThat(testPage.getTotalElements()).isZero();
+    }
+
+    private String jpql(MemberSearchCondition condition) {
+        return memberSearchPredicates.compose(condition)
+                .applyTo(new JPAQueryFactory(em).selectFrom(member).leftJoin(member.team, team))
+                .toString();
+    }
+}
@@ -0,0 +1,168 @@
+package study.querydsl.repository.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.AgeBand;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchJdbcRepository;
+import study.querydsl.repository.support.EntityChangeEvent;
+import study.querydsl.repository.support.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 인덱스는 커밋된 변경만 반영하므로 @Transactional 없이 테스트하고, 끝나면 직접 데이터를 지워준다.
+@SpringBootTest(properties = "querydsl.username-index.enabled=true")
+class UsernameIndexTest {
+
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberSearchJdbcRepository memberSearchJdbcRepository;
+    @Autowired UsernameIndex usernameIndex;
+    @Autowired EntityChangePublisher entityChangePublisher;
+    @Autowired DataSource dataSource;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void before() {
+        usernameIndex.invalidate();
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("alice", 10, teamA));
+            em.persist(new Member("alicia", 20, teamB));
+            em.persist(new Member("malice", 30, teamA));
+            em.persist(new Member("bob", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    void clear() {
+        memberRepository.deleteAllInBatch();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Team").executeUpdate());
+    }
+
+    @Test
+    void prefix() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("ali");
+
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("alice", "alicia");
+    }
+
+    @Test
+    void containsWithOtherConditions() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("lic");
+        condition.setTeamName("teamA");
+
+        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("alice", "malice");
+        assertThat(memberSearchJdbcRepository.search(condition)).containsExactlyInAnyOrderElementsOf(result);
+    }
+
+    @Test
+    void noMatch() {
+        assertThat(usernameIndex.findIds(null, "zzz")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("zzz");
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+    }
+
+    // 인덱스에 아직 반영 안된 커밋(afterCommit 전)이 있어도 인덱스상 0건이면 like로 DB에서 찾음
+    @Test
+    void noMatchFallsBackToLike() {
+        assertThat(usernameIndex.findIds(null, "zed").get()).isEmpty();
+        jdbcTemplate.update("insert into member (member_id, username, username_normalized, age, age_band) " +
+                "values (next value for member_seq, 'zedd', 'zedd', 50, ?)", AgeBand.of(50).ordinal());
+        assertThat(usernameIndex.findIds(null, "zed").get()).isEmpty();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameContains("zed");
+        assertThat(memberJpaRepository.search(condition)).extracting("username").containsExactly("zedd");
+    }
+
+    // 커밋된 insert/update/delete와 벌크 update가 인덱스에 반영된다
+    @Test
+    void syncWithChanges() {
+        assertThat(usernameIndex.findIds("bo", null).get()).hasSize(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("bonnie", 50));
+            Member bob = memberRepository.findAll().stream()
+                    .filter(m -> m.getUsername().equals("bob")).findFirst().get();
+            bob.setUsername("robert");
+        });
+        assertThat(usernameIndex.findIds("bo", null).get()).hasSize(1);
+        assertThat(usernameIndex.findIds(null, "ber").get()).hasSize(1);
+
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member m where m.username = 'bonnie'").executeUpdate());
+        // JPQL 벌크 delete는 이벤트가 안나오니 publishBulk가 없으면 인덱스가 모른다 -> like 조건이 같이 걸려서 결과는 맞음
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("bo");
+        assertThat(memberJpaRepository.search(condition)).isEmpty();
+    }
+
+    // 같은 트랜잭션에서 넣은 회원은 인덱스에 없으니 like 조건으로 찾아야 한다 (flush 전/후 모두)
+    @Test
+    void uncommittedChangesBypassIndex() {
+        assertThat(usernameIndex.findIds("ali", null).get()).hasSize(2);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("ali");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("alina", 50));
+            assertThat(memberJpaRepository.search(condition)).extracting("username")
+                    .containsExactlyInAnyOrder("alice", "alicia", "alina");
+
+            em.flush();
+            assertThat(memberRepository.search(condition)).extracting("username")
+                    .containsExactlyInAnyOrder("alice", "alicia", "alina");
+        });
+    }
+
+    // 전체 로딩의 SELECT 이후에 커밋된 변경은 버려지지 않고, 다음 조회 때 다시 로딩해서 반영
+    @Test
+    void changeDuringReload() {
+        UsernameIndex[] racing = new UsernameIndex[1];
+        AtomicBoolean committed = new AtomicBoolean();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                super.query(sql, rch);
+                if (committed.compareAndSet(false, true)) {
+                    Member alina = new Member("alina", 50);
+                    transactionTemplate.executeWithoutResult(status -> em.persist(alina));
+                    racing[0].afterCommit(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, alina,
+                            alina.getId(), new String[]{"username"}, null, new Object[]{"alina"}));
+                }
+            }
+        };
+        racing[0] = new UsernameIndex(jdbcTemplate, entityChangePublisher, true, 1000);
+
+        assertThat(racing[0].findIds("ali", null).get()).hasSize(2);
+        assertThat(racing[0].findIds("ali", null).get()).hasSize(3);
+    }
+}
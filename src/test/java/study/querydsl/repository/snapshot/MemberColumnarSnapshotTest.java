@@ -0,0 +1,140 @@
+package study.querydsl.repository.snapshot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.AgeBand;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.EntityChangeEvent;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static study.querydsl.entity.QMember.member;
+
+// QuerydslBasicTest의 서브쿼리, CASE 예제를 스냅샷으로 계산
+@SpringBootTest(properties = "querydsl.snapshot.enabled=true")
+@Transactional
+class MemberColumnarSnapshotTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberColumnarSnapshot snapshot;
+    @Autowired DataSource dataSource;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Team teamA;
+
+    @BeforeEach
+    void before() {
+        teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+
+        // 테스트 트랜잭션은 롤백되므로 매번 새로 로딩
+        snapshot.invalidate();
+    }
+
+    @AfterEach
+    void after() {
+        snapshot.invalidate();
+    }
+
+    // subQuery: 나이가 가장 많은 회원
+    @Test
+    void maxAge() {
+        int maxAge = snapshot.maxAge(null).getAsInt();
+
+        assertThat(maxAge).isEqualTo(40);
+        assertThat(snapshot.count(member.age.eq(maxAge))).isEqualTo(1);
+    }
+
+    // subQueryGoe: 나이가 평균 이상인 회원
+    @Test
+    void goeAvgAge() {
+        double avgAge = snapshot.avgAge(null).getAsDouble();
+
+        assertThat(snapshot.count(member.age.goe(avgAge))).isEqualTo(2);
+    }
+
+    @Test
+    void predicate() {
+        assertThat(snapshot.count(member.team.id.eq(teamA.getId()).and(member.age.gt(10)))).isEqualTo(1);
+        assertThat(snapshot.count(member.username.in("member1", "member4", "none"))).isEqualTo(2);
+        assertThat(snapshot.count(member.age.between(15, 35).not())).isEqualTo(2);
+        assertThat(snapshot.count(member.username.startsWith("member"))).isEqualTo(4);
+    }
+
+    // 소수 상수(평균 나이 등)는 정수 컬럼 기준으로 올림/내림해서 비교
+    @Test
+    void fractionalConstant() {
+        assertThat(snapshot.count(member.age.gt(19.5))).isEqualTo(3);
+        assertThat(snapshot.count(member.age.loe(19.5))).isEqualTo(1);
+        assertThat(snapshot.count(member.age.between(9.5, 20.5))).isEqualTo(2);
+    }
+
+    // 2^53 넘는 id도 double로 바꾸지 않고 long 그대로 비교 (double이면 2^53, 2^53 + 1 이 같은 값이 됨)
+    @Test
+    void largeIds() {
+        long big = 1L << 53;
+        for (long id = big; id <= big + 1; id++) {
+            jdbcTemplate.update("insert into member (member_id, username, username_normalized, age, age_band) values (?, ?, ?, 50, ?)",
+                    id, "big" + id, "big" + id, AgeBand.of(50).ordinal());
+        }
+        snapshot.invalidate();
+
+        assertThat(snapshot.count(member.id.eq(big + 1))).isEqualTo(1);
+        assertThat(snapshot.count(member.id.in(big + 1, big + 2))).isEqualTo(1);
+        assertThat(snapshot.count(member.id.gt(big))).isEqualTo(1);
+        assertThat(snapshot.findIds(member.id.between(big + 1, big + 1))).containsExactly(big + 1);
+    }
+
+    // complexCase: 나이 구간별 회원수
+    @Test
+    void countByAge() {
+        Map<String, Long> result = snapshot.countByAge(null,
+                age -> age <= 20 ? "0~20살" : age <= 30 ? "21~30살" : "기타");
+
+        assertThat(result).containsOnly(entry("0~20살", 2L), entry("21~30살", 1L), entry("기타", 1L));
+    }
+
+    // 전체 로딩의 SELECT 이후에 커밋된 변경은 버려지지 않고, 다음 조회 때 다시 로딩해서 반영
+    @Test
+    void changeDuringReload() {
+        MemberColumnarSnapshot[] racing = new MemberColumnarSnapshot[1];
+        AtomicBoolean committed = new AtomicBoolean();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                super.query(sql, rch);
+                if (committed.compareAndSet(false, true)) {
+                    Member member5 = new Member("member5", 50, teamA);
+                    em.persist(member5);
+                    em.flush();
+                    racing[0].afterCommit(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, member5,
+                            member5.getId(), new String[]{"username", "age", "team"}, null, new Object[]{"member5", 50, teamA}));
+                }
+            }
+        };
+        racing[0] = new MemberColumnarSnapshot(jdbcTemplate, true);
+
+        assertThat(racing[0].count(null)).isEqualTo(4);
+        assertThat(racing[0].count(null)).isEqualTo(5);
+        assertThat(racing[0].maxAge(null).getAsInt()).isEqualTo(50);
+    }
+}
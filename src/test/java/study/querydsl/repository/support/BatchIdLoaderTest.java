@@ -0,0 +1,108 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.SqlStatementCounter;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class BatchIdLoaderTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired SqlStatementCounter sqlStatementCounter;
+
+    List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 130; i++) {
+            Member m = new Member("member" + i, i, teamA);
+            em.persist(m);
+            ids.add(m.getId());
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    // 입력 순서 유지, 중복은 그대로, 없는 id는 빠짐
+    @Test
+    void inputOrder() {
+        List<Long> request = Arrays.asList(ids.get(2), ids.get(0), -1L, ids.get(2), ids.get(1));
+
+        List<Member> result = memberRepository.findAllByIdsInOrder(request, FetchPlan.of(member.team));
+
+        assertThat(result).extracting("username").containsExactly("member2", "member0", "member2", "member1");
+        assertThat(result.get(0)).isSameAs(result.get(2));
+        assertThat(Hibernate.isInitialized(result.get(0).getTeam())).isTrue();
+    }
+
+    // 영속성 컨텍스트에 이미 있는 엔티티는 SQL 없이 반환
+    @Test
+    void persistenceContextHit() {
+        em.find(Member.class, ids.get(0));
+        em.find(Member.class, ids.get(1));
+
+        long before = sqlStatementCounter.current();
+        List<Member> result = memberRepository.findAllByIdsInOrder(Arrays.asList(ids.get(1), ids.get(0)), FetchPlan.LEAN);
+
+        assertThat(result).extracting("username").containsExactly("member1", "member0");
+        assertThat(sqlStatementCounter.current() - before).isZero();
+    }
+
+    // 영속성 컨텍스트, 2차 캐시에서 찾은 엔티티도 FetchPlan의 연관관계는 초기화되어 있어야 함
+    @Test
+    void loadedHitAppliesFetchPlan() {
+        Member loaded = em.find(Member.class, ids.get(0));
+        assertThat(Hibernate.isInitialized(loaded.getTeam())).isFalse();
+
+        List<Member> result = memberRepository.findAllByIdsInOrder(Arrays.asList(ids.get(0), ids.get(1)), FetchPlan.of(member.team));
+
+        assertThat(result.get(0)).isSameAs(loaded);
+        assertThat(result).allSatisfy(m -> assertThat(Hibernate.isInitialized(m.getTeam())).isTrue());
+
+        em.clear();
+        Member lean = em.find(Member.class, ids.get(2));
+        List<Member> deep = memberRepository.findAllByIdsInOrder(Arrays.asList(ids.get(2)), FetchPlan.of(member.team.members));
+        assertThat(deep.get(0)).isSameAs(lean);
+        assertThat(Hibernate.isInitialized(lean.getTeam())).isTrue();
+        assertThat(Hibernate.isInitialized(lean.getTeam().getMembers())).isTrue();
+    }
+
+    // 130개 -> 128 + 1 두 번의 IN 쿼리
+    @Test
+    void chunked() {
+        long before = sqlStatementCounter.current();
+        List<Member> result = memberRepository.findAllByIdsInOrder(ids, FetchPlan.LEAN);
+
+        assertThat(result).hasSize(130);
+        assertThat(result.get(129).getUsername()).isEqualTo("member129");
+        assertThat(sqlStatementCounter.current() - before).isEqualTo(2);
+    }
+
+    @Test
+    void padding() {
+        assertThat(BatchIdLoader.paddedSize(1)).isEqualTo(1);
+        assertThat(BatchIdLoader.paddedSize(3)).isEqualTo(4);
+        assertThat(BatchIdLoader.paddedSize(100)).isEqualTo(128);
+        assertThat(BatchIdLoader.pad(Arrays.asList(1L, 2L, 3L))).containsExactly(1L, 2L, 3L, 3L);
+    }
+}
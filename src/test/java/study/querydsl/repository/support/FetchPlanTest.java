@@ -0,0 +1,106 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class FetchPlanTest {
+
+    @Autowired EntityManager em;
+    @PersistenceUnit EntityManagerFactory emf;
+    @Autowired MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void lean() {
+        List<Member> result = memberTestRepository.basicSelectFrom(FetchPlan.LEAN);
+
+        assertThat(result).hasSize(4);
+        assertThat(result).noneMatch(m -> isLoaded(m.getTeam()));
+    }
+
+    @Test
+    void standard() {
+        List<Member> result = memberTestRepository.basicSelectFrom(FetchPlan.of(member.team));
+
+        assertThat(result).allMatch(m -> isLoaded(m.getTeam()));
+        assertThat(result).noneMatch(m -> isLoaded(m.getTeam().getMembers()));
+    }
+
+    @Test
+    void deep() {
+        List<Member> result = memberTestRepository.basicSelectFrom(FetchPlan.of(member.team.members));
+
+        // 팀의 회원 컬렉션을 조인해도 회원이 중복돼서 나오면 안됨
+        assertThat(result).hasSize(4);
+        assertThat(result).allMatch(m -> isLoaded(m.getTeam()) && isLoaded(m.getTeam().getMembers()));
+    }
+
+    @Test
+    void named() {
+        List<Member> result = memberTestRepository.basicSelectFrom(FetchPlan.named("Member.team"));
+
+        assertThat(result).hasSize(4);
+        assertThat(result).allMatch(m -> isLoaded(m.getTeam()));
+
+        List<Member> deep = memberTestRepository.basicSelectFrom(FetchPlan.named("Member.teamMembers"));
+
+        assertThat(deep).hasSize(4);
+        assertThat(deep).allMatch(m -> isLoaded(m.getTeam().getMembers()));
+    }
+
+    @Test
+    void applyPagination() {
+        Page<Member> result = memberTestRepository.applyPagination(
+                new MemberSearchCondition(), PageRequest.of(0, 3), FetchPlan.of(member.team));
+
+        assertThat(result.getContent()).hasSize(3);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).allMatch(m -> isLoaded(m.getTeam()));
+    }
+
+    // 컬렉션까지 가져오는 플랜은 SQL 페이징이 안되므로 막힌다
+    @Test
+    void applyPagination_collection() {
+        assertThatThrownBy(() -> memberTestRepository.applyPagination(
+                new MemberSearchCondition(), PageRequest.of(0, 3), FetchPlan.named("Member.teamMembers")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private boolean isLoaded(Object entity) {
+        return emf.getPersistenceUnitUtil().isLoaded(entity);
+    }
+}
@@ -0,0 +1,203 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 스프링 없이 PagePrefetcher만 테스트 (다음 페이지는 page-prefetcher 스레드에서 비동기로 조회)
+class PagePrefetcherTest {
+
+    private static final Class<?>[] MEMBER = {Member.class};
+    private static final int PAGE_SIZE = 3;
+
+    ChangeVersions changeVersions = new ChangeVersions();
+    List<PagePrefetcher> prefetchers = new ArrayList<>();
+    AtomicInteger calls = new AtomicInteger();
+
+    // 페이지마다 PAGE_SIZE개씩 꽉 찬 결과 ("p0-0", "p0-1", ...)
+    Function<Pageable, List<String>> loader = page -> {
+        calls.incrementAndGet();
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < page.getPageSize(); i++) {
+            rows.add("p" + page.getPageNumber() + "-" + i);
+        }
+        return rows;
+    };
+
+    // 전체 건수 (count 쿼리 대신)
+    AtomicInteger counts = new AtomicInteger();
+    LongSupplier total = () -> {
+        counts.incrementAndGet();
+        return 100;
+    };
+
+    @AfterEach
+    void after() {
+        prefetchers.forEach(PagePrefetcher::shutdown);
+    }
+
+    @Test
+    void hit() throws Exception {
+        PagePrefetcher prefetcher = prefetcher(256, 1000, 60_000);
+
+        assertThat(prefetcher.fetch("hit", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total)).containsExactly("p0-0", "p0-1", "p0-2");
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 1);
+
+        int callsBefore = calls.get();
+        assertThat(prefetcher.fetch("hit", PageRequest.of(1, PAGE_SIZE), MEMBER, loader, total)).containsExactly("p1-0", "p1-1", "p1-2");
+
+        // 1페이지는 미리 가져온 걸 그대로 사용 (loader 호출은 2페이지 미리 가져오기뿐)
+        PrefetchStats stats = prefetcher.getStats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 2);
+        assertThat(calls.get()).isEqualTo(callsBefore + 1);
+    }
+
+    // 미리 가져온 페이지는 전체 건수도 같이 저장해둬서 count도 다시 안함
+    @Test
+    void hitKeepsTotal() throws Exception {
+        PagePrefetcher prefetcher = prefetcher(256, 1000, 60_000);
+
+        Page<String> first = prefetcher.fetch("total", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+        assertThat(first.getTotalElements()).isEqualTo(100);
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 1);
+        assertThat(counts.get()).isEqualTo(2); // 0페이지(요청 스레드) + 1페이지(미리 가져오기)
+
+        Page<String> second = prefetcher.fetch("total", PageRequest.of(1, PAGE_SIZE), MEMBER, loader, total);
+        assertThat(second.getTotalElements()).isEqualTo(100);
+        assertThat(second.getNumber()).isEqualTo(1);
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 2);
+        assertThat(counts.get()).isEqualTo(3); // 1페이지는 저장해둔 값, 늘어난 건 2페이지 미리 가져오기뿐
+    }
+
+    @Test
+    void partialPageNotPrefetched() {
+        PagePrefetcher prefetcher = prefetcher(256, 1000, 60_000);
+
+        prefetcher.fetch("last", PageRequest.of(0, PAGE_SIZE), MEMBER, page -> Arrays.asList("only"), total);
+
+        assertThat(prefetcher.getStats().getEntries()).isZero();
+        assertThat(calls.get()).isZero();
+    }
+
+    @Test
+    void staleAfterWrite() throws Exception {
+        PagePrefetcher prefetcher = prefetcher(256, 1000, 60_000);
+
+        prefetcher.fetch("stale", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 1);
+
+        // 미리 가져온 뒤에 회원이 바뀌면 버리고 다시 조회
+        changeVersions.bump(Member.class);
+        prefetcher.fetch("stale", PageRequest.of(1, PAGE_SIZE), MEMBER, loader, total);
+
+        PrefetchStats stats = prefetcher.getStats();
+        assertThat(stats.getStale()).isEqualTo(1);
+        assertThat(stats.getHits()).isZero();
+        assertThat(stats.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void otherTypeChangeKeepsEntry() throws Exception {
+        PagePrefetcher prefetcher = prefetcher(256, 1000, 60_000);
+
+        prefetcher.fetch("other", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 1);
+
+        changeVersions.bump(String.class);
+        prefetcher.fetch("other", PageRequest.of(1, PAGE_SIZE), MEMBER, loader, total);
+
+        assertThat(prefetcher.getStats().getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void ttl() throws Exception {
+        PagePrefetcher prefetcher = prefetcher(256, 1000, 1);
+
+        prefetcher.fetch("ttl", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 1);
+        Thread.sleep(20);
+
+        prefetcher.fetch("ttl", PageRequest.of(1, PAGE_SIZE), MEMBER, loader, total);
+
+        assertThat(prefetcher.getStats().getStale()).isEqualTo(1);
+        assertThat(prefetcher.getStats().getHits()).isZero();
+    }
+
+    @Test
+    void rejectTooManyRows() throws Exception {
+        PagePrefetcher prefetcher = prefetcher(256, PAGE_SIZE - 1, 60_000);
+
+        prefetcher.fetch("rows", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+
+        // 다음 페이지가 max-rows보다 크면 저장하지 않음
+        waitUntil(() -> prefetcher.getStats().getRejected() == 1);
+        assertThat(prefetcher.getStats().getEntries()).isZero();
+        assertThat(prefetcher.getStats().getPrefetched()).isZero();
+    }
+
+    @Test
+    void rejectTooManyEntries() throws Exception {
+        PagePrefetcher prefetcher = prefetcher(1, 1000, 60_000);
+
+        prefetcher.fetch("entries-a", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+        waitUntil(() -> prefetcher.getStats().getPrefetched() == 1);
+
+        // 캐시가 max-entries만큼 차 있으면 더 가져오지 않음
+        prefetcher.fetch("entries-b", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+
+        assertThat(prefetcher.getStats().getRejected()).isEqualTo(1);
+        assertThat(prefetcher.getStats().getEntries()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectEntities() {
+        PagePrefetcher prefetcher = prefetcher(256, 1000, 60_000);
+
+        assertThatThrownBy(() -> prefetcher.fetch("entity", PageRequest.of(0, 1), MEMBER,
+                page -> Arrays.asList(new Member("member1")), total))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(prefetcher.getStats().getEntries()).isZero();
+    }
+
+    @Test
+    void disabled() {
+        PagePrefetcher prefetcher = new PagePrefetcher(changeVersions, false, 256, 1000, 60_000);
+        prefetchers.add(prefetcher);
+
+        prefetcher.fetch("disabled", PageRequest.of(0, PAGE_SIZE), MEMBER, loader, total);
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(prefetcher.getStats().getMisses()).isZero();
+        assertThat(prefetcher.getStats().getEntries()).isZero();
+    }
+
+    private PagePrefetcher prefetcher(int maxEntries, int maxRows, long ttlMillis) {
+        PagePrefetcher prefetcher = new PagePrefetcher(changeVersions, true, maxEntries, maxRows, ttlMillis);
+        prefetchers.add(prefetcher);
+        return prefetcher;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 여러 스레드가 동시에 호출해야 하므로 테스트 트랜잭션 없이 실행
+@SpringBootTest
+class SingleFlightTest {
+
+    private static final Class<?>[] MEMBER = {Member.class};
+
+    @Autowired SingleFlight singleFlight;
+    @Autowired ChangeVersions changeVersions;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void coalesce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        long sharedBefore = singleFlight.getShared();
+
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> singleFlight.execute("coalesce", MEMBER, () -> {
+                calls.incrementAndGet();
+                await(release);
+                return Arrays.asList("member1", "member2");
+            })));
+        }
+        // leader 1개 + follower 3개가 모두 합류한 뒤에 쿼리를 끝냄
+        waitUntil(() -> singleFlight.getShared() - sharedBefore == 3);
+        release.countDown();
+
+        List<List<String>> results = new ArrayList<>();
+        for (Future<List<String>> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(results).allSatisfy(r -> assertThat(r).isSameAs(results.get(0)));
+        assertThat(results.get(0)).containsExactly("member1", "member2");
+        assertThatThrownBy(() -> results.get(0).add("member3")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void notJoinedAfterChange() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<List<String>> before = executor.submit(() -> singleFlight.execute("change", MEMBER, () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return Arrays.asList("old");
+        }));
+        await(started);
+
+        // 데이터가 바뀐 뒤에 온 요청은 바뀌기 전에 시작한 쿼리에 합류하지 않음
+        changeVersions.bump(Member.class);
+        List<String> after = singleFlight.execute("change", MEMBER, () -> {
+            calls.incrementAndGet();
+            return Arrays.asList("new");
+        });
+        release.countDown();
+
+        assertThat(after).containsExactly("new");
+        assertThat(before.get(5, TimeUnit.SECONDS)).containsExactly("old");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failureSharedWithFollowers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        long sharedBefore = singleFlight.getShared();
+
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(() -> singleFlight.execute("failure", MEMBER, () -> {
+                await(release);
+                throw new IllegalStateException("boom");
+            })));
+        }
+        waitUntil(() -> singleFlight.getShared() - sharedBefore == 1);
+        release.countDown();
+
+        for (Future<List<String>> future : futures) {
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+        // 실패한 키는 남지 않으므로 다음 요청은 새로 실행
+        assertThat(singleFlight.execute("failure", MEMBER, () -> Arrays.asList("retry"))).containsExactly("retry");
+    }
+
+    @Test
+    void bypassInReadWriteTransaction() {
+        long executedBefore = singleFlight.getExecuted();
+
+        List<String> result = transactionTemplate.execute(status ->
+                singleFlight.execute("tx", MEMBER, () -> new ArrayList<>(Arrays.asList("member1"))));
+
+        // 쓰기 트랜잭션에서는 합치지 않고 그대로 실행 (결과 List도 그대로)
+        assertThat(singleFlight.getExecuted()).isEqualTo(executedBefore);
+        result.add("member2");
+        assertThat(result).containsExactly("member1", "member2");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.OrderSpecifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.search.MemberSorts;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class SortTranslatorTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberSorts memberSorts;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void translate() {
+        OrderSpecifier<?>[] username = memberSorts.orderBy(Sort.by(Sort.Direction.DESC, "username"));
+        assertThat(username).containsExactly(member.username.desc(), member.id.desc());
+
+        OrderSpecifier<?>[] ageBand = memberSorts.orderBy(Sort.by("ageBand"));
+        assertThat(ageBand).containsExactly(member.ageBand.asc(), member.age.asc(), member.id.asc());
+
+        OrderSpecifier<?>[] id = memberSorts.orderBy(Sort.by(Sort.Direction.DESC, "id"));
+        assertThat(id).containsExactly(member.id.desc());
+
+        assertThat(memberSorts.orderBy(Sort.unsorted())).containsExactly(member.id.asc());
+    }
+
+    // 조인한 팀 테이블 컬럼(team.name)은 인덱스 순서로 못읽으니 정렬키로 허용하지 않음
+    @Test
+    void joinedColumnRejected() {
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "teamName"));
+
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(new MemberSearchCondition(), pageRequest))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("teamName");
+        assertThat(memberSorts.getSortTranslator().isSortable("teamName")).isFalse();
+    }
+
+    // Querydsl4RepositorySupport의 applyPagination 오버로드(카운트 쿼리 분리, FetchPlan, 미리 가져오기)도 같은 정렬키만 허용
+    @Test
+    void allPaginationPathsUseWhitelist() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest byUsername = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+        PageRequest byAge = PageRequest.of(0, 3, Sort.by("age"));
+
+        assertThat(memberTestRepository.searchPageByApplyPage(condition, byUsername).getContent())
+                .extracting("username").containsExactly("member4", "member3", "member2");
+        assertThat(memberTestRepository.applyPagination2(condition, byUsername).getContent())
+                .extracting("username").containsExactly("member4", "member3", "member2");
+        assertThat(memberTestRepository.applyPagination(condition, byUsername, FetchPlan.LEAN).getContent())
+                .extracting("username").containsExactly("member4", "member3", "member2");
+        Page<MemberTeamDto> prefetch = memberTestRepository.applyPaginationWithPrefetch(condition, byUsername);
+        assertThat(prefetch.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+        assertThat(prefetch.getTotalElements()).isEqualTo(4);
+
+        assertThatThrownBy(() -> memberTestRepository.searchPageByApplyPage(condition, byAge)).isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> memberTestRepository.applyPagination2(condition, byAge)).isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> memberTestRepository.applyPagination(condition, byAge, FetchPlan.LEAN)).isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> memberTestRepository.applyPaginationWithPrefetch(condition, byAge)).isInstanceOf(InvalidSortException.class);
+    }
+
+    @Test
+    void rejected() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 인덱스 없는 컬럼
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 10, Sort.by("age"))))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("age");
+        // 정렬키 여러 개
+        assertThatThrownBy(() -> memberTestRepository.applyPagination(condition, PageRequest.of(0, 10, Sort.by("username", "ageBand"))))
+                .isInstanceOf(InvalidSortException.class);
+    }
+
+    @Test
+    void lenient() {
+        SortTranslator sortTranslator = SortTranslator.builder(member.id)
+                .key("username", member.username)
+                .key("teamName", team.name)
+                .strict(false)
+                .build();
+
+        assertThat(sortTranslator.translate(Sort.by(Sort.Order.desc("age"), Sort.Order.desc("teamName"), Sort.Order.asc("username"))))
+                .containsExactly(team.name.desc(), member.id.desc());
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class StreamTest {
+
+    static final int MEMBER_COUNT = 250;
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            em.persist(new Member("member" + i, i % 50, i % 2 == 0 ? teamA : teamB));
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void forEach() {
+        MemberSearchCondition condition = MemberSearchCondition.builder().teamName("teamA").build();
+        List<String> usernames = new ArrayList<>();
+        int[] maxManaged = {0};
+
+        long count = memberTestRepository.forEach(condition, StreamOption.of(20).clearEvery(50), m -> {
+            usernames.add(m.getUsername());
+            maxManaged[0] = Math.max(maxManaged[0], managedEntities());
+        });
+
+        assertThat(count).isEqualTo(MEMBER_COUNT / 2);
+        assertThat(usernames).hasSize(MEMBER_COUNT / 2).startsWith("member0", "member2", "member4");
+        // 50건마다 clear 하므로 영속성 컨텍스트에는 50개 이하만 남음
+        assertThat(maxManaged[0]).isLessThanOrEqualTo(50);
+    }
+
+    @Test
+    void stream() {
+        MemberSearchCondition condition = MemberSearchCondition.builder().ageGoe(40).build();
+
+        try (Stream<Member> stream = memberTestRepository.stream(condition, StreamOption.defaults())) {
+            List<Integer> ages = stream.map(Member::getAge).distinct().sorted().collect(Collectors.toList());
+            assertThat(ages).containsExactly(40, 41, 42, 43, 44, 45, 46, 47, 48, 49);
+        }
+    }
+
+    // 중간에 끝내거나 예외가 나도 커서가 닫혀서 같은 트랜잭션에서 계속 조회할 수 있음
+    @Test
+    void earlyTermination() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Optional<Member> first;
+        try (Stream<Member> stream = memberTestRepository.stream(condition, StreamOption.of(10))) {
+            first = stream.filter(m -> m.getAge() == 3).findFirst();
+        }
+        assertThat(first).map(Member::getUsername).hasValue("member3");
+
+        assertThatThrownBy(() -> memberTestRepository.forEach(condition, StreamOption.of(10), m -> {
+            throw new IllegalStateException("stop");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("stop");
+
+        assertThat(memberTestRepository.basicSelectFrom()).hasSize(MEMBER_COUNT);
+    }
+
+    @Test
+    void emptyResult() {
+        MemberSearchCondition condition = MemberSearchCondition.builder().ageGoe(30).ageLoe(10).build();
+
+        assertThat(memberTestRepository.forEach(condition, StreamOption.defaults(), m -> {
+        })).isZero();
+    }
+
+    @Test
+    void requiresTransaction() {
+        TransactionTemplate notSupported = new TransactionTemplate(transactionManager);
+        notSupported.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+
+        assertThatThrownBy(() -> notSupported.executeWithoutResult(status ->
+                memberTestRepository.forEach(new MemberSearchCondition(), StreamOption.defaults(), m -> {
+                })))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private int managedEntities() {
+        return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+}
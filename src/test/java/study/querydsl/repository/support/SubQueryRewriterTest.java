@@ -0,0 +1,129 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+// QuerydslBasicTest의 서브쿼리 예제를 재작성해도 결과가 같은지 확인
+@SpringBootTest
+@Transactional
+class SubQueryRewriterTest {
+
+    @Autowired EntityManager em;
+
+    JPAQueryFactory queryFactory;
+    SubQueryRewriter rewriter;
+    QMember memberSub = new QMember("memberSub");
+
+    @BeforeEach
+    void before() {
+        queryFactory = new JPAQueryFactory(em);
+        rewriter = new SubQueryRewriter(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    void subQuery() {
+        assertSameResult(member.age.eq(
+                JPAExpressions
+                        .select(memberSub.age.max())
+                        .from(memberSub)
+        ), 40);
+    }
+
+    @Test
+    void subQueryGoe() {
+        assertSameResult(member.age.goe(
+                JPAExpressions
+                        .select(memberSub.age.avg())
+                        .from(memberSub)
+        ), 30, 40);
+    }
+
+    @Test
+    void subQueryIn() {
+        assertSameResult(member.age.in(
+                JPAExpressions
+                        .select(memberSub.age)
+                        .from(memberSub)
+                        .where(memberSub.age.gt(10))
+        ), 20, 30, 40);
+    }
+
+    @Test
+    void subQueryInEmpty() {
+        assertSameResult(member.age.in(
+                JPAExpressions
+                        .select(memberSub.age)
+                        .from(memberSub)
+                        .where(memberSub.age.gt(100))
+        ));
+    }
+
+    // 바깥 쿼리(member)를 참조하는 서브쿼리는 그대로 둔다
+    @Test
+    void correlatedSubQuery() {
+        Predicate where = member.age.eq(
+                JPAExpressions
+                        .select(memberSub.age.max())
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team)));
+
+        JPAQuery<Member> query = rewriter.rewrite(queryFactory.selectFrom(member).where(where));
+
+        assertThat(query.getMetadata().getWhere()).isEqualTo(where);
+        assertThat(query.fetch()).extracting("age").containsExactlyInAnyOrder(20, 40);
+    }
+
+    // in 목록이 MAX_IN_VALUES를 넘으면 (MAX_IN_VALUES + 1건까지만 읽어보고) 서브쿼리 그대로 둔다
+    @Test
+    void subQueryInTooManyValues() {
+        for (int i = 0; i < SubQueryRewriter.MAX_IN_VALUES; i++) {
+            em.persist(new Member("bulk" + i, 100 + i));
+        }
+        em.flush();
+
+        Predicate where = member.age.in(
+                JPAExpressions
+                        .select(memberSub.age)
+                        .from(memberSub)
+                        .where(memberSub.age.gt(5)));
+
+        JPAQuery<Member> query = rewriter.rewrite(queryFactory.selectFrom(member).where(where));
+
+        assertThat(query.getMetadata().getWhere()).isEqualTo(where);
+        assertThat(query.fetch()).hasSize(SubQueryRewriter.MAX_IN_VALUES + 4);
+    }
+
+    private void assertSameResult(Predicate where, Integer... ages) {
+        List<Member> original = queryFactory.selectFrom(member).where(where).fetch();
+        JPAQuery<Member> query = rewriter.rewrite(queryFactory.selectFrom(member).where(where));
+
+        assertThat(query.getMetadata().getWhere()).isNotEqualTo(where);
+        assertThat(query.fetch()).containsExactlyInAnyOrderElementsOf(original);
+        assertThat(original).extracting("age").containsExactlyInAnyOrder((Object[]) ages);
+    }
+}